@@ -0,0 +1,169 @@
+package org.kogu.lox.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Runs benchmarks with the GC profiler and keeps their results in a checked-in baseline file.
+ * <p>
+ * The file is tab-separated text, one row per benchmark and parameter set, lines starting with
+ * {@code #} are comments:
+ * <pre>
+ * benchmark  params  mode  score  error  unit  alloc
+ * </pre>
+ * {@code params} is {@code name=value} pairs joined by {@code ,} in name order, or {@code -} for
+ * none; {@code mode} is JMH's short label; {@code alloc} is {@code gc.alloc.rate.norm} in bytes per
+ * operation. Usage:
+ * <pre>
+ * Baseline [--include regex] --write baseline.tsv
+ * Baseline [--include regex] --compare baseline.tsv [--tolerance percent]
+ * </pre>
+ * {@code --compare} exits with 1 when any score or allocation is worse than the baseline's by more
+ * than the tolerance, 10% by default, allocations also by more than {@value #ALLOC_SLACK} B/op. Rows
+ * missing on either side are reported, not failed.
+ */
+public final class Baseline {
+    // bytes per op any allocation may grow by, whatever the tolerance
+    static final double ALLOC_SLACK = 1.0;
+    private static final List<String> HEADER = List.of(
+        "# Written by org.kogu.lox.bench.Baseline --write, on the reference machine only; format in its javadoc.",
+        "# benchmark\tparams\tmode\tscore\terror\tunit\talloc");
+
+    public record Row(String benchmark, String params, String mode, double score, double error, String unit,
+                      double alloc) {
+        String key() {
+            return benchmark + " " + params;
+        }
+
+        // thrpt counts operations, every other mode times them
+        boolean higherIsBetter() {
+            return mode.equals("thrpt");
+        }
+    }
+
+    public static void main(String... args) throws IOException, RunnerException {
+        String include = CorpusBenchmark.class.getSimpleName();
+        Path write = null, compare = null;
+        double tolerance = 10;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--include" -> include = args[i + 1];
+                case "--write" -> write = Path.of(args[i + 1]);
+                case "--compare" -> compare = Path.of(args[i + 1]);
+                case "--tolerance" -> tolerance = Double.parseDouble(args[i + 1]);
+                default -> usage();
+            }
+        }
+        if (args.length % 2 != 0 || (write == null) == (compare == null)) usage();
+
+        List<Row> current = run(include);
+        if (write != null) {
+            write(write, current);
+            return;
+        }
+        List<String> regressions = compare(read(compare), current, tolerance);
+        regressions.forEach(System.out::println);
+        if (regressions.stream().anyMatch(r -> r.startsWith("REGRESSION")))
+            System.exit(1);
+    }
+
+    private static void usage() {
+        System.err.println("Usage: Baseline [--include regex] (--write file | --compare file [--tolerance percent])");
+        System.exit(64);
+    }
+
+    public static List<Row> run(String include) throws RunnerException {
+        Collection<RunResult> results = new Runner(new OptionsBuilder()
+            .include(include)
+            .addProfiler(GCProfiler.class)
+            .shouldFailOnError(true)
+            .build()).run();
+
+        List<Row> rows = new ArrayList<>();
+        for (RunResult r : results) {
+            Map<String, String> params = new TreeMap<>();
+            for (String key : r.getParams().getParamsKeys()) params.put(key, r.getParams().getParam(key));
+            Result<?> primary = r.getPrimaryResult();
+            rows.add(new Row(r.getParams().getBenchmark(), joinParams(params), r.getParams().getMode().shortLabel(),
+                primary.getScore(), primary.getScoreError(), primary.getScoreUnit(), allocated(r)));
+        }
+        return rows;
+    }
+
+    // NaN when the GC profiler had nothing to say
+    private static double allocated(RunResult r) {
+        Result<?> norm = r.getSecondaryResults().get("gc.alloc.rate.norm");
+        if (norm == null) norm = r.getSecondaryResults().get("·gc.alloc.rate.norm");
+        return norm == null ? Double.NaN : norm.getScore();
+    }
+
+    private static String joinParams(Map<String, String> params) {
+        if (params.isEmpty()) return "-";
+        StringBuilder sb = new StringBuilder();
+        params.forEach((k, v) -> sb.append(sb.isEmpty() ? "" : ",").append(k).append('=').append(v));
+        return sb.toString();
+    }
+
+    public static List<Row> read(Path file) throws IOException {
+        List<Row> rows = new ArrayList<>();
+        for (String line : Files.readAllLines(file)) {
+            if (line.isBlank() || line.startsWith("#")) continue;
+            String[] f = line.split("\t");
+            if (f.length != 7) throw new IOException(file + ": expected 7 tab-separated fields: " + line);
+            rows.add(new Row(f[0], f[1], f[2], Double.parseDouble(f[3]), Double.parseDouble(f[4]), f[5],
+                Double.parseDouble(f[6])));
+        }
+        return rows;
+    }
+
+    public static void write(Path file, List<Row> rows) throws IOException {
+        List<String> lines = new ArrayList<>(HEADER);
+        for (Row r : rows)
+            // alloc in full: a few thousandths of a byte is still not nothing
+            lines.add(String.format(Locale.ROOT, "%s\t%s\t%s\t%.3f\t%.3f\t%s\t%s",
+                r.benchmark(), r.params(), r.mode(), r.score(), r.error(), r.unit(), r.alloc()));
+        Files.write(file, lines);
+    }
+
+    // one line per row that changed beyond tolerance or is missing, REGRESSION lines fail --compare
+    public static List<String> compare(List<Row> baseline, List<Row> current, double tolerancePercent) {
+        double tolerance = tolerancePercent / 100;
+        Map<String, Row> before = new HashMap<>();
+        for (Row r : baseline) before.put(r.key(), r);
+
+        List<String> report = new ArrayList<>();
+        for (Row now : current) {
+            Row then = before.remove(now.key());
+            if (then == null) {
+                report.add("NEW " + now.key());
+                continue;
+            }
+            double change = (now.score() - then.score()) / then.score();
+            if (now.higherIsBetter()) change = -change;
+            if (change > tolerance)
+                report.add(String.format(Locale.ROOT, "REGRESSION %s: %.3f -> %.3f %s (%+.1f%%)",
+                    now.key(), then.score(), now.score(), now.unit(), change * 100));
+            // slack on top, or the profiler's noise on a benchmark that allocates nothing fails it
+            if (now.alloc() > then.alloc() * (1 + tolerance) + ALLOC_SLACK)
+                report.add(String.format(Locale.ROOT, "REGRESSION %s: allocates %.1f -> %.1f B/op",
+                    now.key(), then.alloc(), now.alloc()));
+        }
+        for (String missing : before.keySet()) report.add("MISSING " + missing);
+        return report;
+    }
+}
@@ -0,0 +1,31 @@
+package org.kogu.lox.bench;
+
+import org.kogu.lox.ch07_eval.CompiledCache;
+import org.kogu.lox.ch07_eval.Pipeline;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// the same source over and over: scanning and parsing it each time against a cache hit
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@State(Scope.Benchmark)
+public class CompiledCacheBenchmark {
+    private static final String SOURCE = "(1 + 2) * 3 - 4 / 2.5 >= 7 == !(1 > 2) == (\"a\" + \"b\" == \"ab\")";
+
+    private final CompiledCache cache = CompiledCache.ofBytes(1 << 20);
+
+    @Benchmark
+    public Pipeline.Compiled compile() {
+        return new Pipeline(SOURCE).compile();
+    }
+
+    // a fresh String each time, as a request would bring
+    @Benchmark
+    public Pipeline.Compiled cached() {
+        return cache.compile(new String(SOURCE));
+    }
+}
@@ -0,0 +1,86 @@
+package org.kogu.lox.bench;
+
+import org.kogu.lox.ch08_statements.ConcurrentSymbolTable;
+import org.kogu.lox.ch08_statements.SymbolTable;
+import org.kogu.lox.ch08_statements.Symbols;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// shared globals under many threads: run with -t 1, 2, 4, ... read throughput should grow with it
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@State(Scope.Benchmark)
+public class ConcurrentGlobalsBenchmark {
+    private static final int GLOBALS = 256;
+    private static final int SITES = 64;
+
+    private final ConcurrentSymbolTable table = new ConcurrentSymbolTable();
+    // the obvious thread-safe version of what Environment used to be
+    private final Map<String, Object> locked = Collections.synchronizedMap(new HashMap<>());
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < GLOBALS; i++) {
+            String name = "global" + i;
+            table.define(new SymbolTable.Site(Symbols.intern(name)), i);
+            locked.put(name, i);
+        }
+    }
+
+    // each thread has its own sites and names, as each would run its own resolved script
+    @State(Scope.Thread)
+    public static class Reader {
+        SymbolTable.Site[] sites = new SymbolTable.Site[SITES];
+        String[] names = new String[SITES];
+        SymbolTable.Site written;
+        int next;
+
+        @Setup
+        public void setUp() {
+            for (int i = 0; i < SITES; i++) {
+                names[i] = "global" + (i * 31 % GLOBALS);
+                sites[i] = new SymbolTable.Site(Symbols.intern(names[i]));
+            }
+            written = new SymbolTable.Site(Symbols.intern("global0"));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SITES)
+    public int siteReads(Reader reader) {
+        int found = 0;
+        for (SymbolTable.Site site : reader.sites) if (table.get(site) instanceof Integer) found++;
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SITES)
+    public int lockedMapReads(Reader reader) {
+        int found = 0;
+        for (String name : reader.names) if (locked.get(name) != null) found++;
+        return found;
+    }
+
+    // three readers to one writer assigning a global all of them read
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    @OperationsPerInvocation(SITES)
+    public int mixedReads(Reader reader) {
+        return siteReads(reader);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public boolean mixedWrites(Reader reader) {
+        return table.assign(reader.written, reader.next++);
+    }
+}
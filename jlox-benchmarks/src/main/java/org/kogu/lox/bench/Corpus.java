@@ -0,0 +1,83 @@
+package org.kogu.lox.bench;
+
+import java.util.Random;
+
+/**
+ * Generated sources the front end and the evaluator are measured on, the same text on every run.
+ * <p>
+ * Only what the parser accepts: numbers, arithmetic, comparisons, grouping and negation. Divisors
+ * are never zero, so every source evaluates.
+ */
+public enum Corpus {
+    // a line typed at the prompt
+    Small {
+        @Override
+        void append(StringBuilder sb, Random random) {
+            sb.append("(1 + 2) * 3 - 4 / 2.5 >= ");
+            leaf(sb, random);
+        }
+    },
+    // a balanced tree of 4096 leaves
+    Large {
+        @Override
+        void append(StringBuilder sb, Random random) {
+            balanced(sb, random, 12);
+        }
+    },
+    // every level a grouping and a negation, the recursion in each stage at its deepest
+    Deep {
+        @Override
+        void append(StringBuilder sb, Random random) {
+            for (int i = 0; i < 256; i++) {
+                leaf(sb, random);
+                sb.append(i % 2 == 0 ? " + -(" : " * (");
+            }
+            leaf(sb, random);
+            sb.append(")".repeat(256));
+        }
+    },
+    // one flat chain of 1024 terms, the loops rather than the recursion
+    Wide {
+        @Override
+        void append(StringBuilder sb, Random random) {
+            leaf(sb, random);
+            for (int i = 1; i < 1024; i++) {
+                sb.append(i % 2 == 0 ? " + " : " - ");
+                leaf(sb, random);
+            }
+        }
+    };
+
+    public String source() {
+        StringBuilder sb = new StringBuilder();
+        append(sb, new Random(ordinal()));
+        return sb.toString();
+    }
+
+    abstract void append(StringBuilder sb, Random random);
+
+    private static void balanced(StringBuilder sb, Random random, int depth) {
+        if (depth == 0) {
+            leaf(sb, random);
+            return;
+        }
+        sb.append('(');
+        balanced(sb, random, depth - 1);
+        // only a leaf is sure not to be zero
+        sb.append(switch (random.nextInt(depth == 1 ? 4 : 3)) {
+            case 0 -> " + ";
+            case 1 -> " - ";
+            case 2 -> " * ";
+            default -> " / ";
+        });
+        balanced(sb, random, depth - 1);
+        sb.append(')');
+    }
+
+    // never zero, so dividing by a leaf is always fine
+    private static void leaf(StringBuilder sb, Random random) {
+        int n = random.nextInt(15) + 1;
+        if (random.nextBoolean()) sb.append(n);
+        else sb.append(n).append(".5");
+    }
+}
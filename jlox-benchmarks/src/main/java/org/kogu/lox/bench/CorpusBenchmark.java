@@ -0,0 +1,106 @@
+package org.kogu.lox.bench;
+
+import org.kogu.lox.ch04_scanning.Scanner;
+import org.kogu.lox.ch04_scanning.Token;
+import org.kogu.lox.ch05_ast.Expr;
+import org.kogu.lox.ch05_ast.ExprPrinter;
+import org.kogu.lox.ch05_ast.Literal;
+import org.kogu.lox.ch06_parser.ErrorReporter;
+import org.kogu.lox.ch06_parser.Parser;
+import org.kogu.lox.ch07_eval.Interpreter;
+import org.kogu.lox.ch08_statements.Environment;
+import org.kogu.lox.ch08_statements.Executor;
+import org.kogu.lox.ch08_statements.Stmt;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.kogu.lox.ch05_ast.Expr.literal;
+
+// each stage on its own, over every Corpus; run with -prof gc for the allocation rates, or through Baseline
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@State(Scope.Thread)
+public class CorpusBenchmark {
+    private static final int GLOBALS = 16;
+
+    @Param({"Small", "Large", "Deep", "Wide"})
+    public Corpus corpus;
+
+    private String source;
+    private List<Token> tokens;
+    private Expr expr;
+    // the same tree with globals for leaves
+    private List<Stmt> program;
+    private Executor executor;
+    private ErrorReporter reporter;
+
+    @Setup
+    public void setUp() {
+        source = corpus.source();
+        tokens = new Scanner(source).scanTokens();
+        expr = Parser.parse(tokens).orElseThrow();
+
+        reporter = ErrorReporter.fakeReporter();
+        executor = new Executor(new Environment(), new PrintStream(OutputStream.nullOutputStream()));
+        List<Stmt> globals = new ArrayList<>();
+        for (int i = 0; i < GLOBALS; i++) globals.add(Stmt.var("g" + i, literal(i + 1)));
+        if (!executor.execute(globals, reporter)) throw new IllegalStateException("globals did not resolve");
+        program = List.of(Stmt.expression(withGlobals(expr, new int[1])));
+    }
+
+    // the parser has no variables yet: every leaf becomes a read of one of the globals, never zero
+    private static Expr withGlobals(Expr expr, int[] leaves) {
+        return switch (expr) {
+            case Expr.Binary b -> Expr.binary(withGlobals(b.lhs(), leaves), b.op(), withGlobals(b.rhs(), leaves));
+            case Expr.Grouping(var e) -> Expr.grouping(withGlobals(e, leaves));
+            case Expr.Unary u -> Expr.unary(u.op(), withGlobals(u.expr(), leaves));
+            case Expr.Variable v -> v;
+            case Literal literal -> Expr.variable("g" + leaves[0]++ % GLOBALS);
+        };
+    }
+
+    @Benchmark
+    public List<Token> scan() {
+        return new Scanner(source).scanTokens();
+    }
+
+    @Benchmark
+    public Object parse() {
+        return Parser.parse(tokens);
+    }
+
+    @Benchmark
+    public String printInfix() {
+        return ExprPrinter.asInfix(expr);
+    }
+
+    @Benchmark
+    public String printRpn() {
+        return ExprPrinter.asRPN(expr);
+    }
+
+    @Benchmark
+    public String printLispy() {
+        return ExprPrinter.lispy(expr);
+    }
+
+    @Benchmark
+    public Object eval() {
+        return Interpreter.eval(expr);
+    }
+
+    // resolves every read to a global slot, then evaluates
+    @Benchmark
+    public boolean executeWithGlobals() {
+        reporter.reset();
+        return executor.execute(program, reporter);
+    }
+}
@@ -0,0 +1,90 @@
+package org.kogu.lox.bench;
+
+import org.kogu.lox.ch04_scanning.Scanner;
+import org.kogu.lox.ch04_scanning.Token;
+import org.kogu.lox.ch05_ast.Expr;
+import org.kogu.lox.ch06_parser.ErrorReporter;
+import org.kogu.lox.ch06_parser.Parser;
+import org.kogu.lox.ch07_eval.Interpreter;
+import org.kogu.lox.ch07_eval.LoxRuntimeError;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.kogu.lox.ch05_ast.BinaryOperator.*;
+import static org.kogu.lox.ch05_ast.Expr.*;
+
+// error-heavy input: every call fails, as it would under fuzzed or malformed traffic
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@State(Scope.Thread)
+public class ErrorPathBenchmark {
+    private Expr divideByZero, notANumber, valid;
+    private List<Token> malformed, wellFormed;
+    private ErrorReporter reporter;
+    // 64 KiB of random bytes, as when a binary file is passed as a script
+    private String garbage;
+
+    @Setup
+    public void setUp() {
+        divideByZero = binary(literal(1), Add, binary(literal(10), Divide, literal(0)));
+        notANumber = binary(literal(2), Multiply, binary(literal(true), Subtract, literal(1)));
+        valid = binary(literal(1), Add, binary(literal(10), Divide, literal(2)));
+
+        malformed = new Scanner("(1 + 2 * ;").scanTokens();
+        wellFormed = new Scanner("(1 + 2 * 3);").scanTokens();
+        reporter = ErrorReporter.fakeReporter();
+
+        byte[] bytes = new byte[64 << 10];
+        new Random(42).nextBytes(bytes);
+        garbage = new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    @Benchmark
+    public Object evalOk() {
+        return Interpreter.eval(valid);
+    }
+
+    @Benchmark
+    public Object divideByZero() {
+        try {
+            return Interpreter.eval(divideByZero);
+        } catch (LoxRuntimeError e) {
+            return e.token;
+        }
+    }
+
+    @Benchmark
+    public Object operandsNotNumbers() {
+        try {
+            return Interpreter.eval(notANumber);
+        } catch (LoxRuntimeError e) {
+            return e.token;
+        }
+    }
+
+    @Benchmark
+    public Optional<Expr> parseOk() {
+        return Parser.parse(wellFormed, reporter);
+    }
+
+    @Benchmark
+    public List<String> scanGarbage() {
+        Scanner scanner = new Scanner(garbage);
+        scanner.scanTokens();
+        return scanner.diagnostics;
+    }
+
+    @Benchmark
+    public Optional<Expr> parseError() {
+        reporter.reset();
+        return Parser.parse(malformed, reporter);
+    }
+}
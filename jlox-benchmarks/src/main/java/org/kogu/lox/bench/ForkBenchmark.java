@@ -0,0 +1,59 @@
+package org.kogu.lox.bench;
+
+import org.kogu.lox.ch08_statements.PersistentSymbolTable;
+import org.kogu.lox.ch08_statements.SymbolTable;
+import org.kogu.lox.ch08_statements.Symbols;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// branching global state for a what-if evaluation: copying a HashMap against forking the trie
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@State(Scope.Thread)
+public class ForkBenchmark {
+    @Param({"16", "1024", "65536"})
+    public int globals;
+
+    private final Map<String, Object> map = new HashMap<>();
+    private final PersistentSymbolTable table = new PersistentSymbolTable();
+    private SymbolTable.Site changed, read;
+    private String readName;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < globals; i++) {
+            String name = "global" + i;
+            map.put(name, i);
+            table.define(new SymbolTable.Site(Symbols.intern(name)), i);
+        }
+        changed = new SymbolTable.Site(Symbols.intern("global0"));
+        readName = "global" + (globals / 2);
+        read = new SymbolTable.Site(Symbols.intern(readName));
+    }
+
+    // fork, change one binding, read another: the shape of a what-if
+    @Benchmark
+    public Object copyMap() {
+        Map<String, Object> fork = new HashMap<>(map);
+        fork.put("global0", -1);
+        return fork.get(readName);
+    }
+
+    @Benchmark
+    public Object forkTrie() {
+        PersistentSymbolTable fork = table.fork();
+        fork.define(changed, -1);
+        return fork.get(read);
+    }
+
+    @Benchmark
+    public Object getTrie() {
+        return table.get(read);
+    }
+}
@@ -0,0 +1,113 @@
+package org.kogu.lox.bench;
+
+import org.kogu.lox.ch08_statements.SymbolTable;
+import org.kogu.lox.ch08_statements.Symbols;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// global variable lookups: the HashMap<String, Object> Environment used to be, against SymbolTable
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@State(Scope.Thread)
+public class GlobalLookupBenchmark {
+    // lookups per invocation, cycling through different names
+    private static final int SITES = 64;
+
+    @Param({"16", "1024"})
+    public int globals;
+
+    private final Map<String, Object> map = new HashMap<>();
+    private final SymbolTable table = new SymbolTable();
+
+    // names as a parser would produce them: equal to, but not the same String as, the stored key
+    private String[] hitNames, missNames;
+    private int[] hitSymbols, missSymbols;
+    private SymbolTable.Site[] hitSites, missSites;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < globals; i++) {
+            String name = "global" + i;
+            map.put(name, i);
+            table.define(table.reserve(Symbols.intern(name)), i);
+        }
+
+        hitNames = new String[SITES];
+        missNames = new String[SITES];
+        hitSymbols = new int[SITES];
+        missSymbols = new int[SITES];
+        hitSites = new SymbolTable.Site[SITES];
+        missSites = new SymbolTable.Site[SITES];
+        for (int i = 0; i < SITES; i++) {
+            hitNames[i] = new String("global" + (i * 31 % globals));
+            missNames[i] = new String("missing" + i);
+            hitSymbols[i] = Symbols.intern(hitNames[i]);
+            missSymbols[i] = Symbols.intern(missNames[i]);
+            hitSites[i] = new SymbolTable.Site(hitSymbols[i]);
+            missSites[i] = new SymbolTable.Site(missSymbols[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SITES)
+    public int hashMapHit() {
+        int found = 0;
+        for (String name : hitNames) if (map.get(name) != null) found++;
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SITES)
+    public int hashMapMiss() {
+        int found = 0;
+        for (String name : missNames) if (map.containsKey(name)) found++;
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SITES)
+    public int symbolHit() {
+        int found = 0;
+        for (int symbol : hitSymbols) if (table.isDefined(table.find(symbol))) found++;
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SITES)
+    public int symbolMiss() {
+        int found = 0;
+        for (int symbol : missSymbols) if (table.isDefined(table.find(symbol))) found++;
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SITES)
+    public int siteHit() {
+        int found = 0;
+        for (SymbolTable.Site site : hitSites) if (table.isDefined(table.find(site))) found++;
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SITES)
+    public int siteMiss() {
+        int found = 0;
+        for (SymbolTable.Site site : missSites) if (table.isDefined(table.find(site))) found++;
+        return found;
+    }
+
+    // what a lookup by name costs when the name still has to be interned
+    @Benchmark
+    @OperationsPerInvocation(SITES)
+    public int internedHit() {
+        int found = 0;
+        for (String name : hitNames) if (table.isDefined(table.find(Symbols.intern(name)))) found++;
+        return found;
+    }
+}
@@ -0,0 +1,68 @@
+package org.kogu.lox.bench;
+
+import org.kogu.lox.ch06_parser.ErrorReporter;
+import org.kogu.lox.ch08_statements.Environment;
+import org.kogu.lox.ch08_statements.Executor;
+import org.kogu.lox.ch08_statements.Image;
+import org.kogu.lox.ch08_statements.Stmt;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.kogu.lox.ch05_ast.BinaryOperator.Add;
+import static org.kogu.lox.ch05_ast.Expr.*;
+
+// time to first evaluation: defining every global again against opening an image of them
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@State(Scope.Thread)
+public class ImageStartupBenchmark {
+    @Param({"1000", "100000"})
+    public int globals;
+
+    private List<Stmt> definitions;
+    private List<Stmt> firstUse;
+    private Path image;
+    private PrintStream out;
+
+    @Setup
+    public void setUp() throws IOException {
+        definitions = new ArrayList<>(globals);
+        for (int i = 0; i < globals; i++) definitions.add(Stmt.var("global" + i, binary(literal(i), Add, literal(0.5))));
+        firstUse = List.of(Stmt.print(binary(variable("global" + (globals / 2)), Add, literal(1))));
+        out = new PrintStream(OutputStream.nullOutputStream());
+
+        Environment env = new Environment();
+        new Executor(env, out).execute(definitions, ErrorReporter.console());
+        image = Files.createTempFile("globals", ".loximg");
+        Image.write(image, env, Map.of());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(image);
+    }
+
+    @Benchmark
+    public boolean fromSource() {
+        Executor executor = new Executor(new Environment(), out);
+        executor.execute(definitions, ErrorReporter.console());
+        return executor.execute(firstUse, ErrorReporter.console());
+    }
+
+    @Benchmark
+    public boolean fromImage() throws IOException {
+        return new Executor(Environment.fromImage(Image.open(image)), out).execute(firstUse, ErrorReporter.console());
+    }
+}
@@ -0,0 +1,72 @@
+package org.kogu.lox.bench;
+
+/**
+ * Counts of recorded values in log-linear buckets, as HdrHistogram keeps them.
+ * <p>
+ * Values below 128 have a bucket each. Above that, every power of two is split into 64 buckets,
+ * so a percentile comes back at most 1/64 (about 1.6%) above the value recorded. That is close
+ * enough for latencies, and it takes 30 KiB for the whole range of a long. Not thread-safe: give
+ * every thread its own and {@link #add} them up at the end.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 6;
+    private static final int SUB = 1 << SUB_BITS;
+    // the first 2 * SUB values exactly, then SUB buckets for each shift 1..63 - SUB_BITS
+    private static final int BUCKETS = 2 * SUB + (63 - SUB_BITS) * SUB;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count, sum, max;
+
+    public void record(long value) {
+        if (value < 0) throw new IllegalArgumentException("negative value: " + value);
+        counts[index(value)]++;
+        count++;
+        sum += value;
+        max = Math.max(max, value);
+    }
+
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) counts[i] += other.counts[i];
+        count += other.count;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public long max() {
+        return max;
+    }
+
+    public double mean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    // the smallest recorded value that percent of all values are at or below, rounded up to its bucket
+    public long valueAt(double percent) {
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percent / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) return Math.min(highest(i), max);
+        }
+        return max;
+    }
+
+    static int index(long value) {
+        if (value < 2 * SUB) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return 2 * SUB + (shift - 1) * SUB + (int) (value >>> shift) - SUB;
+    }
+
+    // largest value that lands in bucket i
+    static long highest(int i) {
+        if (i < 2 * SUB) return i;
+        int shift = (i - 2 * SUB) / SUB + 1;
+        long top = (i - 2 * SUB) % SUB + SUB;
+        return ((top + 1) << shift) - 1;
+    }
+}
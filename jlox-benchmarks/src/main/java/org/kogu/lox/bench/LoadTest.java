@@ -0,0 +1,189 @@
+package org.kogu.lox.bench;
+
+import org.kogu.lox.ch07_eval.BatchRunner;
+import org.kogu.lox.ch07_eval.Pipeline;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives whole {@link Pipeline}s, source to value, from many threads at a fixed arrival rate and
+ * reports the throughput and latency percentiles it saw.
+ * <p>
+ * Open loop: every operation has a start time on a schedule set by the rate alone, and its latency
+ * counts from that time, not from whenever a thread got around to it. A stall shows up in every
+ * operation it delayed, instead of in one slow sample and a quiet gap. Each of the n threads runs
+ * every n-th slot of the schedule. The workload is the given Lox scripts, taken in turn.
+ * <pre>
+ * LoadTest --rate ops/s [--threads n] [--virtual] [--warmup s] [--duration s] (directory | glob | script)...
+ * </pre>
+ */
+public final class LoadTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    // statuses is indexed by Pipeline.Status ordinal, crashes are exceptions Pipeline did not catch
+    public record Report(double rate, double seconds, long[] statuses, long crashes, LatencyHistogram latencies) {
+        public long operations() {
+            return latencies.count();
+        }
+
+        public double throughput() {
+            return operations() / seconds;
+        }
+
+        public void print(PrintStream out) {
+            out.printf(Locale.ROOT, "%d ops in %.1f s: %.1f ops/s, scheduled %.1f ops/s%n",
+                operations(), seconds, throughput(), rate);
+            StringBuilder sb = new StringBuilder();
+            for (Pipeline.Status status : Pipeline.Status.values())
+                sb.append(status).append(' ').append(statuses[status.ordinal()]).append(", ");
+            out.println(sb.append("crashed ").append(crashes));
+            out.printf(Locale.ROOT, "latency ms: p50 %.3f  p90 %.3f  p99 %.3f  p99.9 %.3f  max %.3f  mean %.3f%n",
+                ms(latencies.valueAt(50)), ms(latencies.valueAt(90)), ms(latencies.valueAt(99)),
+                ms(latencies.valueAt(99.9)), ms(latencies.max()), latencies.mean() / 1e6);
+        }
+
+        private static double ms(long nanos) {
+            return nanos / 1e6;
+        }
+    }
+
+    private final List<String> sources;
+    private final double rate;
+    private final int threads;
+    private final ThreadFactory factory;
+
+    public LoadTest(List<String> sources, double rate, int threads, boolean virtual) {
+        if (sources.isEmpty()) throw new IllegalArgumentException("no sources");
+        if (!(rate > 0) || threads < 1) throw new IllegalArgumentException("rate and threads must be positive");
+        this.sources = List.copyOf(sources);
+        this.rate = rate;
+        this.threads = threads;
+        this.factory = virtual ? Thread.ofVirtual().name("load-", 0).factory() : Thread.ofPlatform().name("load-", 0).factory();
+    }
+
+    public static void main(String... args) throws IOException, InterruptedException {
+        double rate = 0, warmup = 5, duration = 30;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean virtual = false;
+        List<String> paths = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--rate" -> rate = Double.parseDouble(args[++i]);
+                    case "--threads" -> threads = Integer.parseInt(args[++i]);
+                    case "--virtual" -> virtual = true;
+                    case "--warmup" -> warmup = Double.parseDouble(args[++i]);
+                    case "--duration" -> duration = Double.parseDouble(args[++i]);
+                    default -> paths.add(args[i]);
+                }
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            usage();
+        }
+        if (paths.isEmpty() || !(rate > 0) || threads < 1 || warmup < 0 || !(duration > 0)) usage();
+
+        List<String> sources = new ArrayList<>();
+        for (Path file : BatchRunner.expand(paths)) sources.add(Files.readString(file, StandardCharsets.US_ASCII));
+        if (sources.isEmpty()) {
+            System.err.println("No scripts in " + paths);
+            System.exit(BatchRunner.EX_NOINPUT);
+        }
+        new LoadTest(sources, rate, threads, virtual)
+            .run((long) (warmup * SECOND), (long) (duration * SECOND))
+            .print(System.out);
+    }
+
+    private static void usage() {
+        System.err.println("Usage: LoadTest --rate ops/s [--threads n] [--virtual] [--warmup s] [--duration s] (directory | glob | script)...");
+        System.exit(64);
+    }
+
+    // operations scheduled in the warmup run, but only those scheduled after it are reported
+    public Report run(long warmupNanos, long durationNanos) throws InterruptedException {
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10);
+        long measured = start + warmupNanos;
+        long end = measured + durationNanos;
+
+        List<Future<Worker>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newThreadPerTaskExecutor(factory)) {
+            for (int k = 0; k < threads; k++) {
+                Worker worker = new Worker(k, start, measured, end);
+                futures.add(executor.submit(() -> {
+                    worker.run();
+                    return worker;
+                }));
+            }
+        }
+
+        long[] statuses = new long[Pipeline.Status.values().length];
+        long crashes = 0, lastDone = end;
+        LatencyHistogram latencies = new LatencyHistogram();
+        for (Future<Worker> f : futures) {
+            Worker w;
+            try {
+                w = f.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("load worker failed", e.getCause());
+            }
+            for (int i = 0; i < statuses.length; i++) statuses[i] += w.statuses[i];
+            crashes += w.crashes;
+            latencies.add(w.latencies);
+            lastDone = Math.max(lastDone, w.lastDone);
+        }
+        // a run that fell behind finishes late, and its throughput is what it managed in that time
+        return new Report(rate, (lastDone - measured) / (double) SECOND, statuses, crashes, latencies);
+    }
+
+    private final class Worker {
+        private final int k;
+        private final long start, measured, end;
+        private final long[] statuses = new long[Pipeline.Status.values().length];
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private long crashes, lastDone;
+
+        private Worker(int k, long start, long measured, long end) {
+            this.k = k;
+            this.start = start;
+            this.measured = measured;
+            this.end = end;
+        }
+
+        private void run() {
+            // slot i of the whole schedule starts at start + i / rate, this worker takes k, k + n, ...
+            for (long slot = k; ; slot += threads) {
+                long intended = start + (long) (slot * SECOND / rate);
+                if (intended - end >= 0) return;
+                for (long wait; (wait = intended - System.nanoTime()) > 0; ) LockSupport.parkNanos(wait);
+
+                String source = sources.get((int) (slot % sources.size()));
+                Pipeline.Status status = null;
+                try {
+                    status = new Pipeline(source).run().status();
+                } catch (RuntimeException | StackOverflowError e) {
+                    // reported as crashed, the run goes on
+                }
+                long done = System.nanoTime();
+                if (intended - measured < 0) continue;
+
+                latencies.record(done - intended);
+                if (status == null) crashes++;
+                else statuses[status.ordinal()]++;
+                lastDone = done;
+            }
+        }
+    }
+}
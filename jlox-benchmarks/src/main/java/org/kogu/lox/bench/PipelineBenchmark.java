@@ -0,0 +1,29 @@
+package org.kogu.lox.bench;
+
+import org.kogu.lox.ch07_eval.Pipeline;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// whole pipelines, nothing shared between threads: run with -t 1, 2, 4, ... throughput should grow with it
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@State(Scope.Thread)
+public class PipelineBenchmark {
+    private static final String VALID = "(1 + 2) * 3 - 4 / 2.5 >= 7 == !(1 > 2) == (\"a\" + \"b\" == \"ab\")";
+    // fails to parse at the very end
+    private static final String INVALID = "(1 + 2) * 3 - 4 / 2.5 >= 7 == !(1 > 2) == (\"a\" + \"b\" == \"ab\"";
+
+    @Benchmark
+    public Pipeline.Result valid() {
+        return new Pipeline(VALID).run();
+    }
+
+    @Benchmark
+    public Pipeline.Result invalid() {
+        return new Pipeline(INVALID).run();
+    }
+}
@@ -0,0 +1,64 @@
+package org.kogu.lox.bench;
+
+import org.kogu.lox.ch05_ast.Expr;
+import org.kogu.lox.ch07_eval.Interpreter;
+import org.kogu.lox.ch07_eval.StackInterpreter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.kogu.lox.ch05_ast.BinaryOperator.*;
+import static org.kogu.lox.ch05_ast.Expr.*;
+import static org.kogu.lox.ch05_ast.UnaryOperator.Negative;
+
+// recursive vs explicit-stack evaluation; chains are left-leaning `+` sums as emitted by generators
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@State(Scope.Thread)
+public class StackEvalBenchmark {
+    @Param({"1", "100", "2000"})
+    public int chainLength;
+
+    private Expr shallow, chain;
+    private StackInterpreter stack;
+
+    @Setup
+    public void setUp() {
+        // (1 + 2) * (3 - -4) / 2
+        shallow = binary(
+            binary(grouping(binary(literal(1), Add, literal(2))), Multiply, grouping(binary(literal(3), Subtract, unary(Negative, literal(4))))),
+            Divide,
+            literal(2)
+        );
+
+        Expr e = literal(0);
+        for (int i = 0; i < chainLength; i++)
+            e = binary(e, Add, literal(i));
+        chain = e;
+
+        stack = new StackInterpreter();
+    }
+
+    @Benchmark
+    public Object recursiveShallow() {
+        return Interpreter.eval(shallow);
+    }
+
+    @Benchmark
+    public Object stackShallow() {
+        return stack.eval(shallow);
+    }
+
+    @Benchmark
+    public Object recursiveChain() {
+        return Interpreter.eval(chain);
+    }
+
+    @Benchmark
+    public Object stackChain() {
+        return stack.eval(chain);
+    }
+}
@@ -0,0 +1,65 @@
+package org.kogu.lox.bench;
+
+import org.kogu.lox.ch05_ast.Expr;
+import org.kogu.lox.ch07_eval.Interpreter;
+import org.kogu.lox.ch07_eval.TaggedInterpreter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.kogu.lox.ch05_ast.BinaryOperator.*;
+import static org.kogu.lox.ch05_ast.Expr.*;
+import static org.kogu.lox.ch05_ast.UnaryOperator.Negative;
+
+// run with `-prof gc`: gc.alloc.rate.norm should be ~0 B/op for the tagged variants
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@State(Scope.Thread)
+public class TaggedEvalBenchmark {
+    private Expr ints, doubles;
+    private TaggedInterpreter tagged;
+
+    @Setup
+    public void setUp() {
+        // (1000 * (7 - -3)) / 4 + 500 * 9
+        ints = binary(
+            binary(grouping(binary(literal(1000), Multiply, grouping(binary(literal(7), Subtract, unary(Negative, literal(3)))))),
+                   Divide, literal(4)),
+            Add,
+            binary(literal(500), Multiply, literal(9))
+        );
+        // same shape over doubles
+        doubles = binary(
+            binary(grouping(binary(literal(1000.5), Multiply, grouping(binary(literal(7.25), Subtract, unary(Negative, literal(3.5)))))),
+                   Divide, literal(4.0)),
+            Add,
+            binary(literal(500.1), Multiply, literal(9.9))
+        );
+        tagged = new TaggedInterpreter();
+    }
+
+    @Benchmark
+    public Object boxedInts() {
+        return Interpreter.eval(ints);
+    }
+
+    @Benchmark
+    public int taggedInts() {
+        tagged.eval(ints);
+        return tagged.intValue();
+    }
+
+    @Benchmark
+    public Object boxedDoubles() {
+        return Interpreter.eval(doubles);
+    }
+
+    @Benchmark
+    public double taggedDoubles() {
+        tagged.eval(doubles);
+        return tagged.doubleValue();
+    }
+}
@@ -8,8 +8,6 @@ import java.util.List;
 import java.util.Scanner;
 
 public final class Lox {
-    private static boolean hadError = false;
-
     public static void main(String... args) throws IOException {
         int len = args.length;
         switch (len) {
@@ -24,8 +22,7 @@ public final class Lox {
 
     private static void runFile(String filePath) throws IOException {
         String src = Files.readString(Paths.get(filePath), StandardCharsets.US_ASCII);
-        run(src);
-        if (hadError)
+        if (run(src))
             System.exit(65);
     }
 
@@ -37,12 +34,12 @@ public final class Lox {
                 if (line == null) break;
 
                 run(line);
-                hadError = false;
             }
         }
     }
 
-    private static void run(String src) {
+    // true if the source had errors
+    private static boolean run(String src) {
         org.kogu.lox.ch04_scanning.Scanner scanner = new org.kogu.lox.ch04_scanning.Scanner(src);
         List<Token> tokens = scanner.scanTokens();
 
@@ -50,17 +47,11 @@ public final class Lox {
             System.out.println(token);
         }
 
-        if (hadError)
-            System.err.println(scanner.errors);
-    }
-
-    static void error(int line, String message) {
-        report(line, "", message);
-    }
+        scanner.diagnostics.forEach(System.err::println);
+        if (scanner.diagnostics.isEmpty()) return false;
 
-    private static void report(int line, String where, String message) {
-        System.err.printf("[line %d] Error%s: %s%n", line, where, message);
-        hadError = true;
+        System.err.println(scanner.errors);
+        return true;
     }
 
 }
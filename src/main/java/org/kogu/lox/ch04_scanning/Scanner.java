@@ -9,24 +9,36 @@ import java.util.List;
 import static org.kogu.lox.ch04_scanning.TokenType.*;
 
 public final class Scanner {
+    // past this many errors a source is not worth scanning any further
+    public static final int MAX_ERRORS = 50;
+    private static final String UNEXPECTED = "Unexpected character";
+
     private final String source;
     private final List<Token> tokens;
 
+    // adjacent unexpected characters make a single error
     public final List<ScanError> errors;
+    // one line per error, as printed to the console, filled in by scanTokens()
+    public final List<String> diagnostics;
     private int start = 0, current = 0, line = 1;
 
     public Scanner(String src) {
         this.source = src;
         this.tokens = new ArrayList<>();
         errors = new ArrayList<>();
+        diagnostics = new ArrayList<>();
     }
 
     public List<Token> scanTokens() {
-        while (!isAtEnd()) {
+        while (!isAtEnd() && errors.size() < MAX_ERRORS) {
             start = current;
             scanToken();
         }
+        // garbage in: reject it without reading the rest, pointing at where scanning stopped
+        if (!isAtEnd())
+            errors.add(new ScanError(line, current, current, "Too many errors, stopped scanning."));
 
+        for (ScanError error : errors) diagnostics.add(describe(error));
         tokens.add(Token.eof(line));
         return tokens;
     }
@@ -73,8 +85,7 @@ public final class Scanner {
                 } else if (isAlpha(c)) {
                     identifier();
                 } else {
-                    Lox.error(line, "Unexpected character: " + c);
-                    mergeOrAddError(errors, new ScanError(line, start, current, "unexpected char(s)"));
+                    mergeOrAddError(errors, new ScanError(line, start, current, UNEXPECTED));
                 }
             }
         }
@@ -116,7 +127,7 @@ public final class Scanner {
         }
 
         if (isAtEnd()) {
-            Lox.error(line, "Unterminated string.");
+            errors.add(new ScanError(line, start, current, "Unterminated string."));
             return;
         }
 
@@ -128,6 +139,27 @@ public final class Scanner {
         addToken(STRING, value);
     }
 
+    private String describe(ScanError error) {
+        String message = error.message();
+        if (message.equals(UNEXPECTED)) {
+            String text = source.substring(error.start(), Math.min(error.end(), error.start() + 32));
+            message = (error.end() - error.start() == 1 ? UNEXPECTED + ": " : UNEXPECTED + "s: ") + printable(text)
+                      + (error.end() - error.start() > text.length() ? "..." : "");
+        }
+        return "[line " + error.line() + "] Error: " + message;
+    }
+
+    // binary input must not reach a terminal as it is
+    private static String printable(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= 0x20 && c < 0x7F) sb.append(c);
+            else sb.append(String.format("\\u%04x", (int) c));
+        }
+        return sb.toString();
+    }
+
     private boolean isAtEnd() {
         return current >= source.length();
     }
@@ -181,19 +213,15 @@ public final class Scanner {
     public record ScanError(int line, int start, int end, String message) {}
 
     private static void mergeOrAddError(List<ScanError> errors, ScanError error) {
-        if (errors.isEmpty()) {
-            errors.add(error);
-            return;
-        }
-
-        ScanError last = errors.getLast();
+        ScanError last = errors.isEmpty() ? null : errors.getLast();
         // error on same line - consecutive - merge
-        if (last.line() == error.line() &&
+        if (last != null &&
+            last.line() == error.line() &&
             last.end() == error.start() &&
             last.message().equals(error.message())) {
-            ScanError merged = new ScanError(error.line(), last.start(), error.end(), last.message());
-            errors.removeLast();
-            errors.add(merged);
+            errors.set(errors.size() - 1, new ScanError(error.line(), last.start(), error.end(), last.message()));
+        } else {
+            errors.add(error);
         }
     }
 }
@@ -1,6 +1,9 @@
 package org.kogu.lox.ch04_scanning;
 
 sealed public interface Token {
+    // the line of a synthetic token: one built in code, for a node no source text produced
+    int SYNTHETIC_LINE = -1;
+
     TokenType tokenType();
     String lexeme();
     int line();
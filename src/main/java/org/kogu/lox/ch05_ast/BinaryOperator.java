@@ -27,6 +27,14 @@ public enum BinaryOperator {
     public final String symbol;
     BinaryOperator(String symbol) {this.symbol = symbol;}
 
+    // tokens are immutable and carry no position yet, so every error can share one per operator
+    private static final Token[] TOKENS = new Token[values().length];
+
+    static {
+        for (BinaryOperator op : values())
+            TOKENS[op.ordinal()] = of(tokenType(op), op.symbol, Token.SYNTHETIC_LINE);
+    }
+
     public static BinaryOperator from(TokenType type) {
         return switch (type) {
             case EQUAL_EQUAL -> Eq;
@@ -44,7 +52,11 @@ public enum BinaryOperator {
     }
 
     public static Token asToken(BinaryOperator op) {
-        TokenType t = switch(op) {
+        return TOKENS[op.ordinal()];
+    }
+
+    private static TokenType tokenType(BinaryOperator op) {
+        return switch(op) {
             case Eq -> EQUAL_EQUAL;
             case NotEq -> BANG_EQUAL;
             case LessThan -> LESS;
@@ -58,7 +70,5 @@ public enum BinaryOperator {
             case Or -> OR;
             case And -> AND;
         };
-
-        return of(t, op.symbol, -1); // TODO: unknown line number
     }
 }
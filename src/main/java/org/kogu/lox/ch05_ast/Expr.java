@@ -1,16 +1,20 @@
 package org.kogu.lox.ch05_ast;
 
+import org.kogu.lox.ch04_scanning.Token;
+import org.kogu.lox.ch04_scanning.TokenType;
 
 import static org.kogu.lox.ch05_ast.Literal.Bool.False;
 import static org.kogu.lox.ch05_ast.Literal.Bool.True;
 
-public sealed interface Expr permits Expr.Binary, Expr.Grouping, Expr.Unary, Literal {
+public sealed interface Expr permits Expr.Binary, Expr.Grouping, Expr.Unary, Expr.Variable, Literal {
     record Binary(Expr lhs, BinaryOperator op, Expr rhs) implements Expr {}
 
     record Unary(UnaryOperator op, Expr expr) implements Expr {}
 
     record Grouping(Expr expr) implements Expr {}
 
+    record Variable(Token name) implements Expr {}
+
     static Expr binary(Expr lhs, BinaryOperator op, Expr rhs) {
         return new Binary(lhs, op, rhs);
     }
@@ -23,6 +27,14 @@ public sealed interface Expr permits Expr.Binary, Expr.Grouping, Expr.Unary, Lit
         return new Grouping(expr);
     }
 
+    static Expr variable(Token name) {
+        return new Variable(name);
+    }
+
+    static Expr variable(java.lang.String name) {
+        return new Variable(Token.of(TokenType.IDENTIFIER, name, Token.SYNTHETIC_LINE));
+    }
+
     static Expr literal(java.lang.String s) {return new Literal.String(s);}
 
     static Expr literal(int n) {return new Literal.Int(n);}
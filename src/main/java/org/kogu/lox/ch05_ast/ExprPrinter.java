@@ -29,6 +29,7 @@ public final class ExprPrinter {
                 acc.append(u.op().symbol);
                 yield _infixHelper(u.expr(), acc);
             }
+            case Expr.Variable(var name) -> acc.append(name.lexeme());
             case Literal literal -> printLiteral(acc, literal);
         };
     }
@@ -57,6 +58,7 @@ public final class ExprPrinter {
                 acc.append(c);
                 yield _rpnHelper(u.expr(), acc);
             }
+            case Expr.Variable(var name) -> acc.append(name.lexeme());
             case Literal literal -> printLiteral(acc, literal);
         };
     }
@@ -80,6 +82,7 @@ public final class ExprPrinter {
                 _lispyHelper(u.expr(), acc);
                 yield acc.append(')');
             }
+            case Expr.Variable(var name) -> acc.append(name.lexeme());
             case Literal literal -> printLiteral(acc, literal);
         };
     }
@@ -0,0 +1,65 @@
+package org.kogu.lox.ch05_ast;
+
+import java.util.ArrayDeque;
+
+public final class Fingerprint {
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+
+    // 64-bit structural hash: equal trees hash equal, whichever instances they are made of;
+    // walks the tree in prefix order with an explicit stack, so depth is not limited by -Xss
+    public static long of(Expr expr) {
+        long h = SEED;
+        ArrayDeque<Expr> pending = new ArrayDeque<>();
+        pending.push(expr);
+        while (!pending.isEmpty()) {
+            switch (pending.pop()) {
+                case Expr.Binary(var lhs, var op, var rhs) -> {
+                    h = mix(h, 1, op.ordinal());
+                    pending.push(rhs);
+                    pending.push(lhs);
+                }
+                case Expr.Unary(var op, var e) -> {
+                    h = mix(h, 2, op.ordinal());
+                    pending.push(e);
+                }
+                case Expr.Grouping(var e) -> {
+                    h = mix(h, 3, 0);
+                    pending.push(e);
+                }
+                case Expr.Variable(var name) -> h = mix(h, 9, name.lexeme().hashCode());
+                case Literal.Int(int n) -> h = mix(h, 4, n);
+                case Literal.Double(double d) -> h = mix(h, 5, Double.doubleToLongBits(d));
+                case Literal.String(var s) -> h = mix(h, 6, s.hashCode() * 31L + s.length());
+                case Literal.Bool(boolean b) -> h = mix(h, 7, b ? 1 : 0);
+                case Literal.Nil _ -> h = mix(h, 8, 0);
+            }
+        }
+        return finish(h);
+    }
+
+    // 64-bit hash of source text, for caching what it compiles to
+    public static long of(CharSequence source) {
+        long h = SEED;
+        int n = source.length(), i = 0;
+        for (; i + 4 <= n; i += 4) {
+            long chunk = (long) source.charAt(i) << 48 | (long) source.charAt(i + 1) << 32 | (long) source.charAt(i + 2) << 16 | source.charAt(i + 3);
+            h = mix(h, 10, chunk);
+        }
+        for (; i < n; i++) h = mix(h, 11, source.charAt(i));
+        return finish(h ^ n);
+    }
+
+    private static long mix(long h, int kind, long value) {
+        h = (h ^ kind) * SEED;
+        return Long.rotateLeft(h ^ value, 29) * 0xBF58476D1CE4E5B9L;
+    }
+
+    // murmur3 finalizer
+    private static long finish(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+}
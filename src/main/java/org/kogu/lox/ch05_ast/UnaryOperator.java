@@ -1,7 +1,12 @@
 package org.kogu.lox.ch05_ast;
 
+import org.kogu.lox.ch04_scanning.Token;
 import org.kogu.lox.ch04_scanning.TokenType;
 
+import static org.kogu.lox.ch04_scanning.Token.of;
+import static org.kogu.lox.ch04_scanning.TokenType.BANG;
+import static org.kogu.lox.ch04_scanning.TokenType.MINUS;
+
 public enum UnaryOperator {
     Negative("-"),
     Not("!");
@@ -9,6 +14,14 @@ public enum UnaryOperator {
     public final String symbol;
     UnaryOperator(String symbol) {this.symbol = symbol;}
 
+    // see BinaryOperator.TOKENS
+    private static final Token[] TOKENS = new Token[values().length];
+
+    static {
+        for (UnaryOperator op : values())
+            TOKENS[op.ordinal()] = of(tokenType(op), op.symbol, Token.SYNTHETIC_LINE);
+    }
+
     public static UnaryOperator from(TokenType tokenType) {
         return switch (tokenType) {
             case MINUS -> Negative;
@@ -16,4 +29,15 @@ public enum UnaryOperator {
             default -> throw new IllegalArgumentException("Unknown token type: " + tokenType);
         };
     }
+
+    public static Token asToken(UnaryOperator op) {
+        return TOKENS[op.ordinal()];
+    }
+
+    private static TokenType tokenType(UnaryOperator op) {
+        return switch (op) {
+            case Negative -> MINUS;
+            case Not -> BANG;
+        };
+    }
 }
@@ -0,0 +1,119 @@
+package org.kogu.lox.ch06_parser;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Prints the diagnostics of any number of sources from one background thread, in batches.
+ * <p>
+ * Each {@link #reporter(String) reporter} hands its errors to a bounded queue and never waits for
+ * the output: when the queue is full the error is counted as dropped, and the count is printed with
+ * the next batch. A reporter also stops queueing after {@code maxPerSource} errors, so one broken
+ * source can't bury the others. {@link #close()} prints whatever is still queued, and returns early,
+ * with the interrupt flag set, when the closing thread is interrupted.
+ */
+public final class DiagnosticWriter implements AutoCloseable {
+    private static final int MAX_BATCH = 256;
+    // never reaches the output, tells the writer thread to stop
+    private static final String END = new String("end");
+
+    private final PrintStream out;
+    private final int maxPerSource;
+    private final BlockingQueue<String> queue;
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+
+    public DiagnosticWriter(PrintStream out, int capacity, int maxPerSource) {
+        if (capacity < 1 || maxPerSource < 1) throw new IllegalArgumentException("capacity and maxPerSource must be positive");
+        this.out = out;
+        this.maxPerSource = maxPerSource;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.writer = Thread.ofPlatform().name("lox-diagnostics").daemon().start(this::drain);
+    }
+
+    // source names the prefix of every line, null for none; one reporter per source and thread
+    public ErrorReporter reporter(String source) {
+        return new Source(source == null ? "" : source + ": ");
+    }
+
+    // diagnostics lost to a full queue so far
+    public long dropped() {
+        return dropped.get();
+    }
+
+    @Override
+    public void close() {
+        try {
+            // a writer that was interrupted is gone and makes no more room in the queue
+            while (!queue.offer(END) && !queue.offer(END, 10, TimeUnit.MILLISECONDS)) {
+                if (!writer.isAlive()) return;
+            }
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void offer(String line) {
+        if (!queue.offer(line)) dropped.incrementAndGet();
+    }
+
+    private void drain() {
+        List<String> batch = new ArrayList<>(MAX_BATCH);
+        StringBuilder sb = new StringBuilder();
+        long reported = 0;
+        boolean end = false;
+        while (!end) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+
+            for (String line : batch) {
+                if (line == END) end = true;
+                else sb.append(line).append('\n');
+            }
+            long lost = dropped.get() - reported;
+            reported += lost;
+            if (lost > 0) sb.append(lost).append(" more diagnostics dropped, output could not keep up\n");
+            // one write per batch instead of one per line
+            out.print(sb);
+            out.flush();
+            batch.clear();
+            sb.setLength(0);
+        }
+    }
+
+    private final class Source implements ErrorReporter {
+        private final String prefix;
+        private int count;
+
+        private Source(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public void handle(Error error) {
+            count++;
+            if (count <= maxPerSource) offer(prefix + error.msg());
+            else if (count == maxPerSource + 1) offer(prefix + "Too many errors, not showing any more.");
+        }
+
+        @Override
+        public boolean receivedError() {
+            return count > 0;
+        }
+
+        @Override
+        public void reset() {
+            count = 0;
+        }
+    }
+}
@@ -1,12 +1,34 @@
 package org.kogu.lox.ch06_parser;
 
 public interface Error {
+    String msg();
+
     @Override
     String toString();
 
-    record ParseError(String msg) implements Error {}
+    // at the token the parser stopped on, whose lexeme is empty at the end of the input
+    record ParseError(String msg, int line, String lexeme) implements Error {}
+
+    record TypeError(String msg) implements Error {}
+
+    record ResolveError(String msg) implements Error {}
+
+    // characters start..end of the source, all on one line; empty when it marks a position
+    record ScanError(String msg, int line, int start, int end) implements Error {}
+
+    static Error parseError(String msg, int line, String lexeme) {
+        return new ParseError(msg, line, lexeme);
+    }
+
+    static Error typeError(String msg) {
+        return new TypeError(msg);
+    }
+
+    static Error resolveError(String msg) {
+        return new ResolveError(msg);
+    }
 
-    static Error parseError(String msg) {
-        return new ParseError(msg);
+    static Error scanError(String msg, int line, int start, int end) {
+        return new ScanError(msg, line, start, end);
     }
 }
@@ -19,7 +19,7 @@ public interface ErrorReporter {
         @Override
         public void handle(Error error) {
             receiverError = true;
-            System.err.println(error);
+            System.err.println(error.msg());
         }
 
         @Override
@@ -1,7 +1,6 @@
 package org.kogu.lox.ch06_parser;
 
 import org.kogu.lox.ch04_scanning.Token;
-import org.kogu.lox.ch04_scanning.TokenType;
 import org.kogu.lox.ch05_ast.Expr;
 import org.kogu.lox.ch05_ast.ExprPrinter;
 
@@ -15,8 +14,6 @@ import java.util.Scanner;
 
 @SuppressWarnings("DuplicatedCode")
 public final class Lox {
-    private static boolean hadError = false;
-
     public static void main(String... args) throws IOException {
         int len = args.length;
         switch (len) {
@@ -31,8 +28,7 @@ public final class Lox {
 
     private static void runFile(String filePath) throws IOException {
         String src = Files.readString(Paths.get(filePath), StandardCharsets.US_ASCII);
-        run(src);
-        if (hadError)
+        if (run(src))
             System.exit(65);
     }
 
@@ -44,37 +40,23 @@ public final class Lox {
                 if (line == null) break;
 
                 run(line);
-                hadError = false;
             }
         }
     }
 
-    private static void run(String src) {
+    // true if the source had errors
+    private static boolean run(String src) {
         org.kogu.lox.ch04_scanning.Scanner scanner = new org.kogu.lox.ch04_scanning.Scanner(src);
         List<Token> tokens = scanner.scanTokens();
+        scanner.diagnostics.forEach(System.err::println);
 
-        Optional<Expr> maybeExpr = Parser.parse(tokens);
+        ErrorReporter reporter = ErrorReporter.console();
+        Optional<Expr> maybeExpr = Parser.parse(tokens, reporter);
 
+        boolean hadError = !scanner.diagnostics.isEmpty() || reporter.receivedError();
         if (hadError)
             System.err.println(scanner.errors);
         else maybeExpr.ifPresent(e -> System.out.println(ExprPrinter.lispy(e)));
+        return hadError;
     }
-
-    public static void error(int line, String message) {
-        report(line, "", message);
-    }
-
-     public static void error(Token token, String message) {
-        if (token.tokenType() == TokenType.EOF) {
-            report(token.line(), " at end", message);
-        } else {
-            report(token.line(), " at '" + token.lexeme() + "'", message);
-        }
-    }
-
-    private static void report(int line, String where, String message) {
-        System.err.printf("[line %d] Error%s: %s%n", line, where, message);
-        hadError = true;
-    }
-
 }
@@ -139,9 +139,10 @@ public final class Parser {
     }
 
     private ParseError error(Token token, String message) {
-        Lox.error(token, message);
-        reporter.handle(Error.parseError(message));
-        return new ParseError();
+        String where = token.tokenType() == EOF ? " at end" : " at '" + token.lexeme() + "'";
+        // plain concatenation: printf re-parses the format on every error
+        reporter.handle(Error.parseError("[line " + token.line() + "] Error" + where + ": " + message, token.line(), token.lexeme()));
+        return new ParseError(token, message);
     }
 
     private boolean match(TokenType type) {
@@ -191,7 +192,15 @@ public final class Parser {
 
     private Token previous() {return tokens.get(current - 1);}
 
-    public static final class ParseError extends RuntimeException {}
+    // only unwinds to parse(), which never looks at a stack trace
+    public static final class ParseError extends RuntimeException {
+        public final Token token;
+
+        ParseError(Token token, String message) {
+            super(message, null, false, false);
+            this.token = token;
+        }
+    }
 
     public static Optional<Expr> parse(List<Token> tokens) {
         Parser parser = new Parser(tokens, ErrorReporter.console());
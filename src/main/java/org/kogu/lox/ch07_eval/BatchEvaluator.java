@@ -0,0 +1,457 @@
+package org.kogu.lox.ch07_eval;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import org.kogu.lox.ch05_ast.BinaryOperator;
+import org.kogu.lox.ch05_ast.Expr;
+import org.kogu.lox.ch05_ast.Literal;
+import org.kogu.lox.ch05_ast.UnaryOperator;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Evaluates one expression over a whole batch of rows, an operator at a time.
+ * <p>
+ * Variables are bound to {@link Column}s and every node produces a column. Numeric operators run
+ * over the raw arrays with the Vector API; rows holding a nil operand, and operands whose types
+ * are not known per column, fall back to {@link Interpreter}'s operators row by row.
+ * <p>
+ * Which rows an operator still works on is a selection mask: a row that raised a
+ * {@link LoxRuntimeError} leaves the selection of every enclosing operator, and the rhs of
+ * {@code or}/{@code and} is only evaluated for rows that did not short-circuit. Values and errors
+ * are the same as calling {@link Interpreter#eval} once per row.
+ */
+public final class BatchEvaluator {
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+
+    private final Map<String, Column> inputs;
+    private final int rows;
+    private final LoxRuntimeError[] errors;
+
+    private BatchEvaluator(Map<String, Column> inputs, int rows) {
+        this.inputs = inputs;
+        this.rows = rows;
+        this.errors = new LoxRuntimeError[rows];
+    }
+
+    public static Result evaluate(Expr expr, int rows, Map<String, Column> inputs) {
+        inputs.forEach((name, column) -> {
+            if (column.size() != rows)
+                throw new IllegalArgumentException("Column '" + name + "' has " + column.size() + " rows, expected " + rows);
+        });
+
+        BatchEvaluator evaluator = new BatchEvaluator(inputs, rows);
+        boolean[] all = new boolean[rows];
+        Arrays.fill(all, true);
+        return new Result(evaluator.eval(expr, all), evaluator.errors);
+    }
+
+    /**
+     * Per-row outcome: a value, or the error that row raised. Values of failed rows are undefined.
+     */
+    public record Result(Column values, LoxRuntimeError[] errors) {
+        public int size() {
+            return values.size();
+        }
+
+        public Object get(int row) {
+            if (errors[row] != null) throw errors[row];
+            return values.get(row);
+        }
+
+        public LoxRuntimeError error(int row) {
+            return errors[row];
+        }
+
+        // the expression as a filter: rows that evaluated to a truthy value
+        public boolean[] selection() {
+            boolean[] selected = new boolean[size()];
+            for (int i = 0; i < selected.length; i++)
+                selected[i] = errors[i] == null && isTruthy(values, i);
+            return selected;
+        }
+
+        private static boolean isTruthy(Column c, int row) {
+            if (c instanceof Column.Bools(var values, var nil)) return values[row] && (nil == null || !nil[row]);
+            Object o = c.get(row);
+            return o != null && !Boolean.FALSE.equals(o);
+        }
+    }
+
+    private Column eval(Expr expr, boolean[] sel) {
+        return switch (expr) {
+            case Expr.Binary b -> switch (b.op()) {
+                case Or -> shortCircuit(b, sel, true);
+                case And -> shortCircuit(b, sel, false);
+                default -> {
+                    Column lhs = eval(b.lhs(), sel);
+                    boolean[] live = live(sel);
+                    Column rhs = eval(b.rhs(), live);
+                    yield binary(b.op(), lhs, rhs, live(live));
+                }
+            };
+            case Expr.Grouping(var e) -> eval(e, sel);
+            case Expr.Unary u -> {
+                Column operand = eval(u.expr(), sel);
+                yield unary(u.op(), operand, live(sel));
+            }
+            case Expr.Variable v -> {
+                Column c = inputs.get(v.name().lexeme());
+                if (c != null) yield c;
+                for (int i = 0; i < rows; i++)
+                    if (sel[i]) errors[i] = Interpreter.undefined(v.name());
+                yield new Column.Boxed(new Object[rows]);
+            }
+            case Literal literal -> broadcast(literal);
+        };
+    }
+
+    // rows still selected that have not failed so far
+    private boolean[] live(boolean[] sel) {
+        boolean[] live = new boolean[rows];
+        for (int i = 0; i < rows; i++)
+            live[i] = sel[i] && errors[i] == null;
+        return live;
+    }
+
+    private Column broadcast(Literal literal) {
+        return switch (literal) {
+            case Literal.Int(int n) -> {
+                int[] values = new int[rows];
+                Arrays.fill(values, n);
+                yield Column.of(values);
+            }
+            case Literal.Double(double d) -> {
+                double[] values = new double[rows];
+                Arrays.fill(values, d);
+                yield Column.of(values);
+            }
+            case Literal.Bool(boolean b) -> {
+                boolean[] values = new boolean[rows];
+                Arrays.fill(values, b);
+                yield Column.of(values);
+            }
+            case Literal.String(var s) -> {
+                Object[] values = new Object[rows];
+                Arrays.fill(values, s);
+                yield new Column.Boxed(values);
+            }
+            case Literal.Nil _ -> new Column.Boxed(new Object[rows]);
+        };
+    }
+
+    private Column shortCircuit(Expr.Binary b, boolean[] sel, boolean shortValue) {
+        Column lhs = eval(b.lhs(), sel);
+        boolean[] live = live(sel);
+
+        // `or` stops at true and `and` at false - exactly, not at any truthy/falsey value
+        boolean[] done = new boolean[rows];
+        boolean[] rest = new boolean[rows];
+        Boolean stop = shortValue;
+        for (int i = 0; i < rows; i++) {
+            if (!live[i]) continue;
+            done[i] = lhs instanceof Column.Bools(var values, var nil)
+                ? values[i] == shortValue && (nil == null || !nil[i])
+                : stop.equals(lhs.get(i));
+            rest[i] = !done[i];
+        }
+
+        Column rhs = eval(b.rhs(), rest);
+        if (rhs instanceof Column.Bools(var values, var nil)) {
+            boolean[] out = new boolean[rows];
+            boolean[] outNil = nil == null ? null : new boolean[rows];
+            for (int i = 0; i < rows; i++) {
+                out[i] = done[i] ? shortValue : values[i];
+                if (outNil != null) outNil[i] = !done[i] && nil[i];
+            }
+            return Column.of(out, outNil);
+        }
+
+        Object[] out = new Object[rows];
+        for (int i = 0; i < rows; i++)
+            out[i] = done[i] ? stop : rest[i] ? rhs.get(i) : null;
+        return new Column.Boxed(out);
+    }
+
+    private Column unary(UnaryOperator op, Column operand, boolean[] live) {
+        Column out = switch (op) {
+            case Negative -> switch (operand) {
+                case Column.Ints(var values, var nil) -> Column.of(negate(values), nil);
+                case Column.Doubles(var values, var nil) -> Column.of(negate(values), nil);
+                default -> null;
+            };
+            case Not -> operand instanceof Column.Bools(var values, var nil) ? Column.of(not(values), nil) : null;
+        };
+        if (out == null) return rowByRow(live, i -> Interpreter.apply(op, operand.get(i)));
+
+        // nil rows: `-nil` fails, `!nil` is true
+        boolean[] nil = nilMask(operand);
+        if (nil != null) {
+            out = withoutNils(out);
+            for (int i = 0; i < rows; i++)
+                if (live[i] && nil[i]) set(out, i, apply(i, () -> Interpreter.apply(op, null)));
+        }
+        return out;
+    }
+
+    private Column binary(BinaryOperator op, Column lhs, Column rhs, boolean[] live) {
+        Column out = switch (op) {
+            case Add, Subtract, Multiply -> {
+                if (lhs instanceof Column.Ints a && rhs instanceof Column.Ints b)
+                    yield Column.of(arithmetic(op, a.values(), b.values()));
+                if (isNumeric(lhs) && isNumeric(rhs))
+                    yield Column.of(arithmetic(op, asDoubles(lhs), asDoubles(rhs)));
+                yield null;
+            }
+            case Divide -> {
+                if (lhs instanceof Column.Ints a && rhs instanceof Column.Ints b)
+                    yield Column.of(divide(a.values(), b.values(), live));
+                if (isNumeric(lhs) && isNumeric(rhs)) {
+                    double[] divisors = asDoubles(rhs);
+                    double[] quotients = arithmetic(op, asDoubles(lhs), divisors);
+                    for (int i = 0; i < rows; i++)
+                        if (live[i] && divisors[i] == 0) apply(i, () -> Interpreter.apply(op, 0.0, 0.0));
+                    yield Column.of(quotients);
+                }
+                yield null;
+            }
+            case LessThan, GreaterThan, LessThanEq, GreaterThanEq -> {
+                if (lhs instanceof Column.Ints a && rhs instanceof Column.Ints b)
+                    yield Column.of(compare(op, a.values(), b.values()));
+                if (isNumeric(lhs) && isNumeric(rhs))
+                    yield Column.of(compare(op, asDoubles(lhs), asDoubles(rhs)));
+                yield null;
+            }
+            case Eq, NotEq -> {
+                boolean negate = op == BinaryOperator.NotEq;
+                if (lhs instanceof Column.Ints a && rhs instanceof Column.Ints b)
+                    yield Column.of(compare(op, a.values(), b.values()));
+                if (lhs instanceof Column.Bools(var a, var _) && rhs instanceof Column.Bools(var b, var _)) {
+                    boolean[] eq = new boolean[rows];
+                    for (int i = 0; i < rows; i++) eq[i] = (a[i] == b[i]) != negate;
+                    yield Column.of(eq);
+                }
+                // Double.equals, not ==: NaN equals itself and 0.0 does not equal -0.0
+                if (lhs instanceof Column.Doubles(var a, var _) && rhs instanceof Column.Doubles(var b, var _)) {
+                    boolean[] eq = new boolean[rows];
+                    for (int i = 0; i < rows; i++)
+                        eq[i] = (Double.doubleToLongBits(a[i]) == Double.doubleToLongBits(b[i])) != negate;
+                    yield Column.of(eq);
+                }
+                yield null;
+            }
+            case Or, And -> throw new IllegalArgumentException("Short-circuit operator: " + op);
+        };
+        if (out == null) return rowByRow(live, i -> Interpreter.apply(op, lhs.get(i), rhs.get(i)));
+
+        boolean[] lhsNil = nilMask(lhs), rhsNil = nilMask(rhs);
+        if (lhsNil != null || rhsNil != null) {
+            for (int i = 0; i < rows; i++) {
+                if (!live[i] || !(isNil(lhsNil, i) || isNil(rhsNil, i))) continue;
+                Object a = lhs.get(i), b = rhs.get(i);
+                set(out, i, apply(i, () -> Interpreter.apply(op, a, b)));
+            }
+        }
+        return out;
+    }
+
+    private interface RowOp {
+        Object apply(int row);
+    }
+
+    private Column rowByRow(boolean[] live, RowOp op) {
+        Object[] out = new Object[rows];
+        for (int i = 0; i < rows; i++) {
+            if (!live[i]) continue;
+            int row = i;
+            out[i] = apply(i, () -> op.apply(row));
+        }
+        return new Column.Boxed(out);
+    }
+
+    private interface Scalar {
+        Object get();
+    }
+
+    // runs one row through Interpreter, recording its error
+    private Object apply(int row, Scalar scalar) {
+        try {
+            return scalar.get();
+        } catch (LoxRuntimeError e) {
+            errors[row] = e;
+            return null;
+        }
+    }
+
+    private static void set(Column c, int row, Object value) {
+        if (value == null) return; // the row failed
+        switch (c) {
+            case Column.Ints(var values, var _) -> values[row] = (Integer) value;
+            case Column.Doubles(var values, var _) -> values[row] = (Double) value;
+            case Column.Bools(var values, var _) -> values[row] = (Boolean) value;
+            case Column.Boxed(var values) -> values[row] = value;
+        }
+    }
+
+    private static Column withoutNils(Column c) {
+        return switch (c) {
+            case Column.Ints(var values, var _) -> Column.of(values);
+            case Column.Doubles(var values, var _) -> Column.of(values);
+            case Column.Bools(var values, var _) -> Column.of(values);
+            case Column.Boxed b -> b;
+        };
+    }
+
+    private static boolean[] nilMask(Column c) {
+        return switch (c) {
+            case Column.Ints(var _, var nil) -> nil;
+            case Column.Doubles(var _, var nil) -> nil;
+            case Column.Bools(var _, var nil) -> nil;
+            case Column.Boxed _ -> null;
+        };
+    }
+
+    private static boolean isNil(boolean[] nil, int row) {
+        return nil != null && nil[row];
+    }
+
+    private static boolean isNumeric(Column c) {
+        return c instanceof Column.Ints || c instanceof Column.Doubles;
+    }
+
+    private static double[] asDoubles(Column c) {
+        return switch (c) {
+            case Column.Doubles(var values, var _) -> values;
+            case Column.Ints(var values, var _) -> {
+                double[] widened = new double[values.length];
+                for (int i = 0; i < values.length; i++) widened[i] = values[i];
+                yield widened;
+            }
+            default -> throw new IllegalArgumentException("Not a numeric column: " + c);
+        };
+    }
+
+    private static boolean[] not(boolean[] values) {
+        boolean[] out = new boolean[values.length];
+        for (int i = 0; i < values.length; i++) out[i] = !values[i];
+        return out;
+    }
+
+    // ----- vectorized kernels: full vectors up to loopBound, then one masked vector for the tail -----
+
+    private static int[] negate(int[] values) {
+        int n = values.length;
+        int[] out = new int[n];
+        for (int i = 0; i < n; i += INTS.length()) {
+            VectorMask<Integer> m = INTS.indexInRange(i, n);
+            IntVector.fromArray(INTS, values, i, m).neg().intoArray(out, i, m);
+        }
+        return out;
+    }
+
+    private static double[] negate(double[] values) {
+        int n = values.length;
+        double[] out = new double[n];
+        for (int i = 0; i < n; i += DOUBLES.length()) {
+            VectorMask<Double> m = DOUBLES.indexInRange(i, n);
+            DoubleVector.fromArray(DOUBLES, values, i, m).neg().intoArray(out, i, m);
+        }
+        return out;
+    }
+
+    private static int[] arithmetic(BinaryOperator op, int[] a, int[] b) {
+        VectorOperators.Binary vop = lanewise(op);
+        int n = a.length;
+        int[] out = new int[n];
+        int i = 0;
+        for (int bound = INTS.loopBound(n); i < bound; i += INTS.length())
+            IntVector.fromArray(INTS, a, i).lanewise(vop, IntVector.fromArray(INTS, b, i)).intoArray(out, i);
+        if (i < n) {
+            VectorMask<Integer> m = INTS.indexInRange(i, n);
+            IntVector.fromArray(INTS, a, i, m).lanewise(vop, IntVector.fromArray(INTS, b, i, m)).intoArray(out, i, m);
+        }
+        return out;
+    }
+
+    private static double[] arithmetic(BinaryOperator op, double[] a, double[] b) {
+        VectorOperators.Binary vop = lanewise(op);
+        int n = a.length;
+        double[] out = new double[n];
+        int i = 0;
+        for (int bound = DOUBLES.loopBound(n); i < bound; i += DOUBLES.length())
+            DoubleVector.fromArray(DOUBLES, a, i).lanewise(vop, DoubleVector.fromArray(DOUBLES, b, i)).intoArray(out, i);
+        if (i < n) {
+            VectorMask<Double> m = DOUBLES.indexInRange(i, n);
+            DoubleVector.fromArray(DOUBLES, a, i, m).lanewise(vop, DoubleVector.fromArray(DOUBLES, b, i, m)).intoArray(out, i, m);
+        }
+        return out;
+    }
+
+    // scalar: a zero divisor fails the row, and a lane must never trap on one
+    private int[] divide(int[] a, int[] b, boolean[] live) {
+        int[] out = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            if (!live[i]) continue;
+            if (b[i] == 0) apply(i, () -> Interpreter.apply(BinaryOperator.Divide, 0, 0));
+            else out[i] = a[i] / b[i];
+        }
+        return out;
+    }
+
+    private static boolean[] compare(BinaryOperator op, int[] a, int[] b) {
+        VectorOperators.Comparison cmp = comparison(op);
+        int n = a.length;
+        boolean[] out = new boolean[n];
+        int i = 0;
+        for (int bound = INTS.loopBound(n); i < bound; i += INTS.length())
+            IntVector.fromArray(INTS, a, i).compare(cmp, IntVector.fromArray(INTS, b, i)).intoArray(out, i);
+        if (i < n) {
+            VectorMask<Integer> m = INTS.indexInRange(i, n);
+            VectorMask<Integer> r = IntVector.fromArray(INTS, a, i, m).compare(cmp, IntVector.fromArray(INTS, b, i, m));
+            for (int lane = 0; i + lane < n; lane++) out[i + lane] = r.laneIsSet(lane);
+        }
+        return out;
+    }
+
+    private static boolean[] compare(BinaryOperator op, double[] a, double[] b) {
+        VectorOperators.Comparison cmp = comparison(op);
+        int n = a.length;
+        boolean[] out = new boolean[n];
+        int i = 0;
+        for (int bound = DOUBLES.loopBound(n); i < bound; i += DOUBLES.length())
+            DoubleVector.fromArray(DOUBLES, a, i).compare(cmp, DoubleVector.fromArray(DOUBLES, b, i)).intoArray(out, i);
+        if (i < n) {
+            VectorMask<Double> m = DOUBLES.indexInRange(i, n);
+            VectorMask<Double> r = DoubleVector.fromArray(DOUBLES, a, i, m).compare(cmp, DoubleVector.fromArray(DOUBLES, b, i, m));
+            for (int lane = 0; i + lane < n; lane++) out[i + lane] = r.laneIsSet(lane);
+        }
+        return out;
+    }
+
+    private static VectorOperators.Binary lanewise(BinaryOperator op) {
+        return switch (op) {
+            case Add -> VectorOperators.ADD;
+            case Subtract -> VectorOperators.SUB;
+            case Multiply -> VectorOperators.MUL;
+            case Divide -> VectorOperators.DIV;
+            default -> throw new IllegalArgumentException("Not an arithmetic operator: " + op);
+        };
+    }
+
+    private static VectorOperators.Comparison comparison(BinaryOperator op) {
+        return switch (op) {
+            case Eq -> VectorOperators.EQ;
+            case NotEq -> VectorOperators.NE;
+            case LessThan -> VectorOperators.LT;
+            case GreaterThan -> VectorOperators.GT;
+            case LessThanEq -> VectorOperators.LE;
+            case GreaterThanEq -> VectorOperators.GE;
+            default -> throw new IllegalArgumentException("Not a comparison operator: " + op);
+        };
+    }
+}
@@ -0,0 +1,134 @@
+package org.kogu.lox.ch07_eval;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Runs many scripts in one JVM, a bounded number at a time.
+ * <p>
+ * Each script gets its own {@link Pipeline}, so one script's errors, or even a crash of the
+ * interpreter, never reach another. Results come back in the order the files were given.
+ */
+public final class BatchRunner {
+    // what a read failure exits with, as in sysexits.h
+    public static final int EX_NOINPUT = 66;
+
+    // output is the printed value, empty unless the script succeeded
+    public record FileResult(Path file, int exitCode, String output, List<String> diagnostics, Duration elapsed) {}
+
+    private final int threads;
+
+    public BatchRunner(int threads) {
+        if (threads < 1) throw new IllegalArgumentException("threads must be positive: " + threads);
+        this.threads = threads;
+    }
+
+    // directories are searched for .lox files, anything with a wildcard is a glob, the rest are files
+    public static List<Path> expand(List<String> args) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (String arg : args) {
+            if (isGlob(arg)) files.addAll(glob(arg));
+            else if (Files.isDirectory(Path.of(arg))) files.addAll(walk(Path.of(arg), p -> p.toString().endsWith(".lox")));
+            else files.add(Path.of(arg));
+        }
+        return files;
+    }
+
+    public List<FileResult> run(List<Path> files) {
+        List<Future<FileResult>> futures = new ArrayList<>(files.size());
+        try (ExecutorService pool = Executors.newFixedThreadPool(threads)) {
+            for (Path file : files) futures.add(pool.submit(() -> run(file)));
+        }
+
+        List<FileResult> results = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            try {
+                results.add(futures.get(i).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while collecting results", e);
+            } catch (ExecutionException e) {
+                // run(Path) catches everything a script can throw, this is a bug in the runner
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        return results;
+    }
+
+    // the worst exit code of the batch, 0 when every script succeeded
+    public static int exitCode(List<FileResult> results) {
+        int code = 0;
+        for (FileResult r : results) code = Math.max(code, r.exitCode());
+        return code;
+    }
+
+    public static void printSummary(List<FileResult> results, PrintStream out) {
+        long failed = results.stream().filter(r -> r.exitCode() != 0).count();
+        Duration total = Duration.ZERO;
+        for (FileResult r : results) {
+            total = total.plus(r.elapsed());
+            out.println(String.format("%3d %9.3f ms  %s", r.exitCode(), r.elapsed().toNanos() / 1e6, r.file()));
+            if (!r.output().isEmpty()) out.println("      = " + r.output());
+            for (String d : r.diagnostics()) out.println("      " + d.replace("\n", "\n      "));
+        }
+        out.println(String.format("%d scripts, %d failed, %.3f ms spent in scripts", results.size(), failed, total.toNanos() / 1e6));
+    }
+
+    private static FileResult run(Path file) {
+        long start = System.nanoTime();
+        String source;
+        try {
+            source = Files.readString(file, StandardCharsets.US_ASCII);
+        } catch (IOException e) {
+            return new FileResult(file, EX_NOINPUT, "", List.of("Could not read " + file + ": " + e), since(start));
+        }
+
+        try {
+            Pipeline.Result r = new Pipeline(source).run();
+            String output = r.status() == Pipeline.Status.Ok ? Lox.stringify(r.value()) : "";
+            return new FileResult(file, r.status().exitCode, output, r.diagnostics(), since(start));
+        } catch (RuntimeException | StackOverflowError e) {
+            // confined to this script, the rest of the batch carries on
+            return new FileResult(file, Pipeline.Status.RuntimeError.exitCode, "", List.of("Interpreter failed: " + e), since(start));
+        }
+    }
+
+    private static Duration since(long start) {
+        return Duration.ofNanos(System.nanoTime() - start);
+    }
+
+    private static boolean isGlob(String arg) {
+        return arg.indexOf('*') >= 0 || arg.indexOf('?') >= 0 || arg.indexOf('[') >= 0 || arg.indexOf('{') >= 0;
+    }
+
+    // walks from the longest leading directory without a wildcard
+    private static List<Path> glob(String pattern) throws IOException {
+        int wildcard = 0;
+        while (!isGlob(pattern.substring(0, wildcard + 1))) wildcard++;
+        int slash = pattern.lastIndexOf('/', wildcard);
+        Path root = slash < 0 ? Path.of("") : Path.of(slash == 0 ? "/" : pattern.substring(0, slash));
+
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+        return walk(root, matcher::matches);
+    }
+
+    private static List<Path> walk(Path root, Predicate<Path> include) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            return paths.filter(Files::isRegularFile).filter(include).sorted().toList();
+        }
+    }
+}
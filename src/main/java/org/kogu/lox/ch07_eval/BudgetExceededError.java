@@ -0,0 +1,32 @@
+package org.kogu.lox.ch07_eval;
+
+/**
+ * Raised by {@link GovernedInterpreter} when an evaluation runs out of a {@link GovernedInterpreter.Budget}.
+ * <p>
+ * Not a {@link LoxRuntimeError}: the script did nothing wrong by Lox's rules, the host stopped it.
+ * Stackless, like {@link LoxRuntimeError}.
+ */
+public final class BudgetExceededError extends RuntimeException {
+    public enum Resource {
+        Steps("steps"),
+        Time("ns"),
+        Allocation("bytes"),
+        Depth("levels");
+
+        final String unit;
+
+        Resource(String unit) {this.unit = unit;}
+    }
+
+    public final Resource resource;
+    public final long limit;
+    // as measured at the check that failed, so at most one check interval past the limit
+    public final long used;
+
+    BudgetExceededError(Resource resource, long limit, long used) {
+        super(resource + " budget exceeded: used " + used + " " + resource.unit + ", limit " + limit, null, false, false);
+        this.resource = resource;
+        this.limit = limit;
+        this.used = used;
+    }
+}
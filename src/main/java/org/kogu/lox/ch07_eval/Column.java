@@ -0,0 +1,71 @@
+package org.kogu.lox.ch07_eval;
+
+import java.util.Arrays;
+
+/**
+ * One value per row of a batch, see {@link BatchEvaluator}.
+ * <p>
+ * Primitive columns carry an optional {@code nil} mask ({@code null} when no row is nil), so numeric
+ * operators can run over the raw arrays and only look at boxed values for the rows that need it.
+ */
+public sealed interface Column {
+    int size();
+
+    // boxed value of a row, null for nil
+    Object get(int row);
+
+    record Ints(int[] values, boolean[] nil) implements Column {
+        public Ints {checkMask(values.length, nil);}
+
+        public int size() {return values.length;}
+
+        public Object get(int row) {return isNil(nil, row) ? null : values[row];}
+    }
+
+    record Doubles(double[] values, boolean[] nil) implements Column {
+        public Doubles {checkMask(values.length, nil);}
+
+        public int size() {return values.length;}
+
+        public Object get(int row) {return isNil(nil, row) ? null : values[row];}
+    }
+
+    record Bools(boolean[] values, boolean[] nil) implements Column {
+        public Bools {checkMask(values.length, nil);}
+
+        public int size() {return values.length;}
+
+        public Object get(int row) {return isNil(nil, row) ? null : values[row];}
+    }
+
+    // strings, or rows whose types differ
+    record Boxed(Object[] values) implements Column {
+        public int size() {return values.length;}
+
+        public Object get(int row) {return values[row];}
+    }
+
+    static Column of(int[] values) {return new Ints(values, null);}
+
+    static Column of(int[] values, boolean[] nil) {return new Ints(values, nil);}
+
+    static Column of(double[] values) {return new Doubles(values, null);}
+
+    static Column of(double[] values, boolean[] nil) {return new Doubles(values, nil);}
+
+    static Column of(boolean[] values) {return new Bools(values, null);}
+
+    static Column of(boolean[] values, boolean[] nil) {return new Bools(values, nil);}
+
+    // null entries are nil
+    static Column of(String[] values) {return new Boxed(Arrays.copyOf(values, values.length, Object[].class));}
+
+    private static void checkMask(int size, boolean[] nil) {
+        if (nil != null && nil.length != size)
+            throw new IllegalArgumentException("nil mask has " + nil.length + " rows, values have " + size);
+    }
+
+    private static boolean isNil(boolean[] nil, int row) {
+        return nil != null && nil[row];
+    }
+}
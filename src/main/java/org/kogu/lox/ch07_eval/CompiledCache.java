@@ -0,0 +1,242 @@
+package org.kogu.lox.ch07_eval;
+
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.kogu.lox.ch05_ast.Expr;
+import org.kogu.lox.ch05_ast.Fingerprint;
+import org.kogu.lox.ch05_ast.Literal;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * Sources and what they compile to, bounded by entries or by estimated bytes.
+ * <p>
+ * Keyed by a fingerprint of the source, confirmed against the source itself, so a collision costs a
+ * miss and never a wrong {@link Expr}. When many threads ask for the same uncached source at once,
+ * one compiles it and the others wait for its result.
+ * <p>
+ * Eviction is segmented LRU, within each of the cache's segments: a new entry starts on probation,
+ * and moves to the protected part, up to 80% of the bound, when it is used again. Evictions take
+ * the least recently used entry on probation, so one pass over many sources that are each used once
+ * only cycles probation and leaves the entries in use alone. A protected entry pushed out by others
+ * goes back to probation, where it has one more chance to be used.
+ */
+public final class CompiledCache {
+    // rough object sizes on a 64-bit JVM with compressed oops
+    private static final int ENTRY_BYTES = 96, STRING_BYTES = 40, NODE_BYTES = 32;
+    // a power of two, each segment has its own lock and its share of the bound
+    private static final int SEGMENTS = 4;
+    private static final double PROTECTED_SHARE = 0.8;
+
+    private final Segment[] segments;
+    private final ToIntBiFunction<String, Pipeline.Compiled> weigher;
+    private final LongAdder hits = new LongAdder(), misses = new LongAdder(), loaded = new LongAdder(),
+        failed = new LongAdder(), loadNanos = new LongAdder(), evictions = new LongAdder();
+
+    public static CompiledCache ofEntries(long maxEntries) {
+        return new CompiledCache(maxEntries, (source, compiled) -> 1, SEGMENTS);
+    }
+
+    public static CompiledCache ofBytes(long maxBytes) {
+        return new CompiledCache(maxBytes, CompiledCache::estimateBytes, SEGMENTS);
+    }
+
+    // for tests: a single segment evicts exactly at its bound
+    CompiledCache(long maxWeight, ToIntBiFunction<String, Pipeline.Compiled> weigher, int segments) {
+        if (maxWeight < 1 || Integer.bitCount(segments) != 1)
+            throw new IllegalArgumentException("Expected a positive bound and a power of two segments, got: " + maxWeight + ", " + segments);
+        this.weigher = weigher;
+        this.segments = new Segment[segments];
+        for (int i = 0; i < segments; i++)
+            this.segments[i] = new Segment(Math.max(1, maxWeight / segments + (i < maxWeight % segments ? 1 : 0)));
+    }
+
+    public Pipeline.Compiled compile(String source) {
+        Key key = new Key(Fingerprint.of(source), source);
+        Segment segment = segments[key.hashCode() & (segments.length - 1)];
+        FutureTask<Pipeline.Compiled> load;
+        boolean owner = false;
+        synchronized (segment) {
+            Pipeline.Compiled cached = segment.get(key);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+            load = segment.loading.get(key);
+            if (load == null) {
+                load = new FutureTask<>(() -> new Pipeline(source).compile());
+                segment.loading.put(key, load);
+                owner = true;
+            }
+        }
+
+        if (!owner) {
+            // waiting for another thread's compile counts as a hit, as in Guava
+            hits.increment();
+            return await(load);
+        }
+        misses.increment();
+        long start = System.nanoTime();
+        load.run();
+        loadNanos.add(System.nanoTime() - start);
+        Pipeline.Compiled compiled;
+        try {
+            compiled = await(load);
+        } catch (RuntimeException | Error e) {
+            failed.increment();
+            synchronized (segment) {
+                segment.loading.remove(key);
+            }
+            throw e;
+        }
+        loaded.increment();
+        int weight = weigher.applyAsInt(source, compiled);
+        synchronized (segment) {
+            segment.loading.remove(key);
+            evictions.add(segment.put(key, new Node(compiled, weight)));
+        }
+        return compiled;
+    }
+
+    // hits, misses and evictions
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), loaded.sum(), failed.sum(), loadNanos.sum(), evictions.sum());
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment s : segments) {
+            synchronized (s) {
+                size += s.probation.size() + s.protect.size();
+            }
+        }
+        return size;
+    }
+
+    public void clear() {
+        for (Segment s : segments) {
+            synchronized (s) {
+                s.probation.clear();
+                s.protect.clear();
+                s.probationWeight = s.protectedWeight = 0;
+            }
+        }
+    }
+
+    private static Pipeline.Compiled await(FutureTask<Pipeline.Compiled> load) {
+        try {
+            return Uninterruptibles.getUninterruptibly(load);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            if (e.getCause() instanceof Error error) throw error;
+            throw new IllegalStateException("Compiling threw a checked exception", e.getCause());
+        }
+    }
+
+    static int estimateBytes(String source, Pipeline.Compiled compiled) {
+        long bytes = ENTRY_BYTES + STRING_BYTES + source.length();
+        if (compiled.expr() != null) bytes += estimateBytes(compiled.expr());
+        for (String d : compiled.diagnostics()) bytes += STRING_BYTES + d.length();
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    // with an explicit stack, as parsed trees can be deeper than -Xss allows to recurse
+    private static long estimateBytes(Expr expr) {
+        long bytes = 0;
+        ArrayDeque<Expr> pending = new ArrayDeque<>();
+        pending.push(expr);
+        while (!pending.isEmpty()) {
+            bytes += NODE_BYTES;
+            switch (pending.pop()) {
+                case Expr.Binary b -> {
+                    pending.push(b.lhs());
+                    pending.push(b.rhs());
+                }
+                case Expr.Unary u -> pending.push(u.expr());
+                case Expr.Grouping g -> pending.push(g.expr());
+                case Expr.Variable v -> bytes += STRING_BYTES + v.name().lexeme().length();
+                case Literal.String s -> bytes += STRING_BYTES + s.value().length();
+                case Literal _ -> {}
+            }
+        }
+        return bytes;
+    }
+
+    private record Node(Pipeline.Compiled compiled, int weight) {}
+
+    // guarded by itself
+    private static final class Segment {
+        private final long capacity, protectedCapacity;
+        // probation in insertion order, protected in access order: both iterate least recently used first
+        private final LinkedHashMap<Key, Node> probation = new LinkedHashMap<>();
+        private final LinkedHashMap<Key, Node> protect = new LinkedHashMap<>(16, 0.75f, true);
+        private final Map<Key, FutureTask<Pipeline.Compiled>> loading = new HashMap<>();
+        private long probationWeight, protectedWeight;
+
+        private Segment(long capacity) {
+            this.capacity = capacity;
+            this.protectedCapacity = Math.max(1, (long) (capacity * PROTECTED_SHARE));
+        }
+
+        // null on a miss; a hit on probation is promoted to protected
+        private Pipeline.Compiled get(Key key) {
+            Node node = protect.get(key);
+            if (node != null) return node.compiled;
+            node = probation.remove(key);
+            if (node == null) return null;
+
+            probationWeight -= node.weight;
+            protect.put(key, node);
+            protectedWeight += node.weight;
+            // the least recently used protected entries go back to the recent end of probation
+            for (Iterator<Map.Entry<Key, Node>> it = protect.entrySet().iterator();
+                 protectedWeight > protectedCapacity && protect.size() > 1; ) {
+                Map.Entry<Key, Node> eldest = it.next();
+                it.remove();
+                protectedWeight -= eldest.getValue().weight;
+                probation.put(eldest.getKey(), eldest.getValue());
+                probationWeight += eldest.getValue().weight;
+            }
+            return node.compiled;
+        }
+
+        // the number of entries evicted to make room
+        private int put(Key key, Node node) {
+            probation.put(key, node);
+            probationWeight += node.weight;
+            int evicted = 0;
+            while (probationWeight + protectedWeight > capacity) {
+                Map<Key, Node> from = probation.isEmpty() ? protect : probation;
+                Iterator<Node> it = from.values().iterator();
+                Node eldest = it.next();
+                it.remove();
+                if (from == probation) probationWeight -= eldest.weight;
+                else protectedWeight -= eldest.weight;
+                evicted++;
+            }
+            return evicted;
+        }
+    }
+
+    private record Key(long fingerprint, String source) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other &&
+                   fingerprint == other.fingerprint &&
+                   (source == other.source || source.equals(other.source));
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(fingerprint);
+        }
+    }
+}
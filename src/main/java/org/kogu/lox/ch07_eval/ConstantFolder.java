@@ -0,0 +1,57 @@
+package org.kogu.lox.ch07_eval;
+
+import org.kogu.lox.ch05_ast.Expr;
+import org.kogu.lox.ch05_ast.Literal;
+
+import static org.kogu.lox.ch05_ast.BinaryOperator.And;
+import static org.kogu.lox.ch05_ast.BinaryOperator.Or;
+
+public final class ConstantFolder {
+
+    // replaces every subtree whose operands are all literals with its value;
+    // subtrees that fail at runtime (eg: 1 / 0) are kept so the error is raised when evaluated
+    public static Expr fold(Expr expr) {
+        return switch (expr) {
+            case Literal literal -> literal;
+            case Expr.Variable v -> v;
+            case Expr.Grouping(var e) -> {
+                Expr inner = fold(e);
+                yield inner instanceof Literal ? inner : Expr.grouping(inner);
+            }
+            case Expr.Unary u -> {
+                Expr inner = fold(u.expr());
+                Expr folded = Expr.unary(u.op(), inner);
+                yield inner instanceof Literal ? tryEval(folded) : folded;
+            }
+            case Expr.Binary b -> {
+                Expr lhs = fold(b.lhs());
+                // a known lhs decides whether `or`/`and` evaluate rhs at all
+                if (lhs instanceof Literal l && b.op() == Or) yield Boolean.TRUE.equals(l.value()) ? l : fold(b.rhs());
+                if (lhs instanceof Literal l && b.op() == And) yield Boolean.FALSE.equals(l.value()) ? l : fold(b.rhs());
+                Expr rhs = fold(b.rhs());
+                Expr folded = Expr.binary(lhs, b.op(), rhs);
+                yield lhs instanceof Literal && rhs instanceof Literal ? tryEval(folded) : folded;
+            }
+        };
+    }
+
+    public static Literal asLiteral(Object value) {
+        return (Literal) switch (value) {
+            case null -> Expr.nil();
+            case Integer n -> Expr.literal(n);
+            case Double d -> Expr.literal(d);
+            case String s -> Expr.literal(s);
+            case LoxString s -> Expr.literal(s.toString());
+            case Boolean b -> Expr.literal(b);
+            default -> throw new IllegalArgumentException("Not a Lox value: " + value);
+        };
+    }
+
+    private static Expr tryEval(Expr expr) {
+        try {
+            return asLiteral(Interpreter.eval(expr));
+        } catch (LoxRuntimeError e) {
+            return expr;
+        }
+    }
+}
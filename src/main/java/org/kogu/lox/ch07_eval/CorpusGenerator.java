@@ -0,0 +1,282 @@
+package org.kogu.lox.ch07_eval;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Writes seeded Lox sources for stress tests and benchmarks, each with the output jlox gives for
+ * it, for differential checks against other interpreters.
+ * <p>
+ * A source is one expression, as {@link org.kogu.lox.ch06_parser.Parser} reads it: equality,
+ * comparison, arithmetic, string concatenation, negation and grouping, over numbers, strings,
+ * booleans and nil, with {@code //} comments in between. The tree is typed as it is generated, so
+ * operands fit their operators, divisors are never zero and a valid source evaluates. Parentheses appear exactly where
+ * precedence needs them, plus where grouping is picked on purpose. {@link #write} sends text out as
+ * it is generated and keeps only the current path down the tree; {@link #generate} then runs each
+ * source through the reference interpreter, which does need it whole. Source {@code i} of the same
+ * options is always the same text, whatever else is generated.
+ * <pre>
+ * CorpusGenerator [--seed n] [--count n] [--leaves n] [--depth n] [--operators a,c,e,u,g]
+ *                 [--literals n,s,b,nil] [--reuse p] [--comments p] [--invalid p] directory
+ * </pre>
+ */
+public final class CorpusGenerator {
+    // relative weights of the node kinds: arithmetic and concatenation, comparison, equality, negation, grouping
+    public record Operators(double arithmetic, double comparison, double equality, double unary, double grouping) {}
+
+    // relative weights of the value types, for leaves and for the operands of == and !
+    public record Literals(double numbers, double strings, double booleans, double nils) {}
+
+    /**
+     * {@code leaves} is the size of a source, the number of literals it aims for; {@code maxDepth}
+     * caps the tree and with it the nesting. {@code reuse} is the chance a literal repeats a recent
+     * one of its type, {@code comments} the chance of a comment after a token, {@code invalid} the
+     * chance a source gets one deliberate scan or parse error.
+     */
+    public record Options(long seed, int leaves, int maxDepth, Operators operators, Literals literals,
+                          double reuse, double comments, double invalid) {
+        public Options {
+            if (leaves < 1 || maxDepth < 1) throw new IllegalArgumentException("leaves and maxDepth must be positive");
+        }
+
+        public static Options defaults(long seed) {
+            return new Options(seed, 64, 32, new Operators(6, 1, 1, 1, 1), new Literals(8, 2, 1, 0.5), 0.2, 0.02, 0);
+        }
+    }
+
+    private enum Type {Number, String, Boolean, Nil, Any}
+
+    // precedence of what a node prints as, a child below its parent's minimum gets parentheses
+    private static final int EQUALITY = 1, COMPARISON = 2, TERM = 3, FACTOR = 4, UNARY = 5, PRIMARY = 6;
+    private static final String[] WORDS = {"lox", "tree", "walk", "byte", "code", "scan", "parse", "eval", "nil", "fun"};
+    // recent literals per type, for reuse
+    private static final int POOL = 64;
+
+    private final Options options;
+
+    public CorpusGenerator(Options options) {
+        this.options = options;
+    }
+
+    public static void main(String... args) throws IOException {
+        Options o = Options.defaults(0);
+        int count = 100;
+        Path dir = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--seed" -> o = new Options(Long.parseLong(args[++i]), o.leaves(), o.maxDepth(), o.operators(), o.literals(), o.reuse(), o.comments(), o.invalid());
+                    case "--count" -> count = Integer.parseInt(args[++i]);
+                    case "--leaves" -> o = new Options(o.seed(), Integer.parseInt(args[++i]), o.maxDepth(), o.operators(), o.literals(), o.reuse(), o.comments(), o.invalid());
+                    case "--depth" -> o = new Options(o.seed(), o.leaves(), Integer.parseInt(args[++i]), o.operators(), o.literals(), o.reuse(), o.comments(), o.invalid());
+                    case "--operators" -> {
+                        double[] w = weights(args[++i], 5);
+                        o = new Options(o.seed(), o.leaves(), o.maxDepth(), new Operators(w[0], w[1], w[2], w[3], w[4]), o.literals(), o.reuse(), o.comments(), o.invalid());
+                    }
+                    case "--literals" -> {
+                        double[] w = weights(args[++i], 4);
+                        o = new Options(o.seed(), o.leaves(), o.maxDepth(), o.operators(), new Literals(w[0], w[1], w[2], w[3]), o.reuse(), o.comments(), o.invalid());
+                    }
+                    case "--reuse" -> o = new Options(o.seed(), o.leaves(), o.maxDepth(), o.operators(), o.literals(), Double.parseDouble(args[++i]), o.comments(), o.invalid());
+                    case "--comments" -> o = new Options(o.seed(), o.leaves(), o.maxDepth(), o.operators(), o.literals(), o.reuse(), Double.parseDouble(args[++i]), o.invalid());
+                    case "--invalid" -> o = new Options(o.seed(), o.leaves(), o.maxDepth(), o.operators(), o.literals(), o.reuse(), o.comments(), Double.parseDouble(args[++i]));
+                    default -> {
+                        if (dir != null) usage();
+                        dir = Path.of(args[i]);
+                    }
+                }
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            usage();
+        }
+        if (dir == null || count < 1) usage();
+
+        new CorpusGenerator(o).generate(dir, count);
+    }
+
+    private static void usage() {
+        System.err.println("Usage: CorpusGenerator [--seed n] [--count n] [--leaves n] [--depth n] [--operators a,c,e,u,g]");
+        System.err.println("                       [--literals n,s,b,nil] [--reuse p] [--comments p] [--invalid p] directory");
+        System.exit(64);
+    }
+
+    private static double[] weights(String arg, int n) {
+        String[] parts = arg.split(",");
+        if (parts.length != n) throw new IllegalArgumentException("expected " + n + " weights: " + arg);
+        double[] w = new double[n];
+        for (int i = 0; i < n; i++) w[i] = Double.parseDouble(parts[i]);
+        return w;
+    }
+
+    // sources 0..count-1 as NNNN.lox, each with NNNN.expected: exit code, then stdout, then stderr lines
+    public List<Path> generate(Path dir, int count) throws IOException {
+        Files.createDirectories(dir);
+        String name = "%0" + Integer.toString(count - 1).length() + "d";
+        List<Path> files = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Path file = dir.resolve(String.format(name, i) + ".lox");
+            try (Writer out = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+                write(i, out);
+            }
+            Files.writeString(dir.resolve(String.format(name, i) + ".expected"), expected(Files.readString(file, StandardCharsets.US_ASCII)),
+                StandardCharsets.US_ASCII);
+            files.add(file);
+        }
+        return files;
+    }
+
+    // what jlox prints for source and exits with, by the reference Interpreter
+    public static String expected(String source) {
+        StringBuilder sb = new StringBuilder();
+        Pipeline.Result r = new Pipeline(source).run();
+        sb.append(r.status().exitCode).append('\n');
+        if (r.status() == Pipeline.Status.Ok) sb.append(Lox.stringify(r.value())).append('\n');
+        for (String d : r.diagnostics()) sb.append(d).append('\n');
+        return sb.toString();
+    }
+
+    public void write(int index, Appendable out) throws IOException {
+        new Source(new Random(mix(options.seed() + index * 0x9E3779B97F4A7C15L)), out).write();
+    }
+
+    // splitmix64's finalizer: Random's first values for seeds 1, 2, 3... are close to each other
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private final class Source {
+        private final Random random;
+        private final Appendable out;
+        private final List<String> numbers = new ArrayList<>(), strings = new ArrayList<>();
+        // the leaf that gets the error, -1 for a valid source
+        private final int broken;
+        private int leaf;
+
+        private Source(Random random, Appendable out) {
+            this.random = random;
+            this.out = out;
+            this.broken = random.nextDouble() < options.invalid() ? random.nextInt(options.leaves()) : -1;
+        }
+
+        private void write() throws IOException {
+            node(Type.Any, options.leaves(), 0, EQUALITY);
+            // the depth cap left fewer leaves than planned, the error still has to be there
+            if (broken >= leaf) out.append(" @");
+            out.append('\n');
+        }
+
+        private void node(Type type, int leaves, int depth, int min) throws IOException {
+            if (type == Type.Any) type = pickType();
+            // nil has no operators of its own
+            if (leaves <= 1 || depth >= options.maxDepth() || type == Type.Nil) {
+                leaf(type);
+                return;
+            }
+
+            Operators w = options.operators();
+            double grouping = w.grouping(), unary = w.unary();
+            double arithmetic = 0, comparison = 0, equality = 0;
+            switch (type) {
+                case Number, String -> arithmetic = w.arithmetic();
+                case Boolean -> {
+                    comparison = w.comparison();
+                    equality = w.equality();
+                }
+                default -> throw new IllegalStateException(type.toString());
+            }
+            if (type == Type.String) unary = 0;
+            double pick = random.nextDouble() * (arithmetic + comparison + equality + unary + grouping);
+            int left = 1 + random.nextInt(leaves - 1);
+
+            if ((pick -= arithmetic) < 0) {
+                if (type == Type.String) {
+                    // a string on the left, so + concatenates whatever is on the right
+                    binary(TERM, min, Type.String, left, " + ", random.nextBoolean() ? Type.String : Type.Number, leaves - left, depth);
+                    return;
+                }
+                // int division of subtrees is 0 too often, a literal divisor never is
+                String op = new String[]{" + ", " - ", " * ", " / "}[random.nextInt(leaves - left == 1 ? 4 : 3)];
+                binary(op.equals(" + ") || op.equals(" - ") ? TERM : FACTOR, min, Type.Number, left, op, Type.Number, leaves - left, depth);
+            } else if ((pick -= comparison) < 0) {
+                String op = new String[]{" < ", " <= ", " > ", " >= "}[random.nextInt(4)];
+                binary(COMPARISON, min, Type.Number, left, op, Type.Number, leaves - left, depth);
+            } else if ((pick -= equality) < 0) {
+                binary(EQUALITY, min, Type.Any, left, random.nextBoolean() ? " == " : " != ", Type.Any, leaves - left, depth);
+            } else if ((pick -= unary) < 0) {
+                boolean wrap = UNARY < min;
+                if (wrap) token("(");
+                token(type == Type.Number ? "-" : "!");
+                // Parser takes a primary after - and !, so --x needs parentheses too
+                node(type == Type.Number ? Type.Number : Type.Any, leaves, depth + 1, PRIMARY);
+                if (wrap) token(")");
+            } else {
+                token("(");
+                node(type, leaves, depth + 1, EQUALITY);
+                token(")");
+            }
+        }
+
+        // left associative: the same precedence is fine on the left, the right needs one more
+        private void binary(int precedence, int min, Type lhs, int leftLeaves, String op, Type rhs, int rightLeaves, int depth) throws IOException {
+            boolean wrap = precedence < min;
+            if (wrap) token("(");
+            node(lhs, leftLeaves, depth + 1, precedence);
+            token(op);
+            node(rhs, rightLeaves, depth + 1, precedence + 1);
+            if (wrap) token(")");
+        }
+
+        private void leaf(Type type) throws IOException {
+            if (leaf++ == broken) {
+                // a scan error, an unclosed parenthesis or an operator where an operand belongs
+                token(new String[]{"@", "(", "* "}[random.nextInt(3)]);
+            }
+            token(switch (type) {
+                case Number -> literal(numbers, () -> random.nextBoolean()
+                    ? Integer.toString(1 + random.nextInt(999))
+                    : (1 + random.nextInt(999)) + "." + (1 + random.nextInt(99)));
+                case String -> literal(strings, () -> '"' + words(1 + random.nextInt(3)) + '"');
+                case Boolean -> random.nextBoolean() ? "true" : "false";
+                case Nil -> "nil";
+                case Any -> throw new IllegalStateException();
+            });
+        }
+
+        private String literal(List<String> pool, Supplier<String> fresh) {
+            if (!pool.isEmpty() && random.nextDouble() < options.reuse()) return pool.get(random.nextInt(pool.size()));
+            String s = fresh.get();
+            if (pool.size() == POOL) pool.set(random.nextInt(POOL), s);
+            else pool.add(s);
+            return s;
+        }
+
+        private Type pickType() {
+            Literals w = options.literals();
+            double pick = random.nextDouble() * (w.numbers() + w.strings() + w.booleans() + w.nils());
+            if ((pick -= w.numbers()) < 0) return Type.Number;
+            if ((pick -= w.strings()) < 0) return Type.String;
+            if ((pick -= w.booleans()) < 0) return Type.Boolean;
+            return Type.Nil;
+        }
+
+        private void token(String text) throws IOException {
+            out.append(text);
+            if (random.nextDouble() < options.comments()) out.append(" // ").append(words(1 + random.nextInt(4))).append('\n');
+        }
+
+        private String words(int n) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < n; i++) sb.append(i == 0 ? "" : " ").append(WORDS[random.nextInt(WORDS.length)]);
+            return sb.toString();
+        }
+    }
+}
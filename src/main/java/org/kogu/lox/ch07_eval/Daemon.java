@@ -0,0 +1,201 @@
+package org.kogu.lox.ch07_eval;
+
+import com.google.common.cache.CacheStats;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Evaluates sources sent over a Unix-domain socket, one virtual thread per connection, so the JVM
+ * and its JIT outlive any single script.
+ * <p>
+ * A request is the source, ended by the client shutting down its output. The response is the exit
+ * code on a line of its own, then each line of output prefixed with {@code "1 "} and each line of
+ * diagnostics with {@code "2 "}; the daemon closes the connection after it. The {@code jlox}
+ * launcher speaks this with {@code nc -U}. Compiled sources are shared by all requests, through a
+ * {@link CompiledCache}.
+ */
+public final class Daemon implements Closeable {
+    // requests are scripts, not data
+    static final int MAX_REQUEST_BYTES = 1 << 20;
+    static final long CACHE_BYTES = 64L << 20;
+
+    private final Path socket;
+    private final ServerSocketChannel server;
+    private final CompiledCache compiled = CompiledCache.ofBytes(CACHE_BYTES);
+    private final Thread acceptor;
+
+    public record Response(int exitCode, List<String> out, List<String> err) {}
+
+    private Daemon(Path socket, ServerSocketChannel server) {
+        this.socket = socket;
+        this.server = server;
+        this.acceptor = Thread.ofPlatform().name("jlox-daemon").daemon().start(this::accept);
+    }
+
+    // ${JLOX_SOCKET}, or jlox-<user>.sock in ${XDG_RUNTIME_DIR} or else in /tmp/jlox-<user>, as the launcher has it
+    public static Path defaultSocket() {
+        String configured = System.getenv("JLOX_SOCKET");
+        if (configured != null && !configured.isEmpty()) return Path.of(configured);
+        String user = System.getProperty("user.name");
+        String dir = System.getenv("XDG_RUNTIME_DIR");
+        return Path.of(dir == null || dir.isEmpty() ? "/tmp/jlox-" + user : dir, "jlox-" + user + ".sock");
+    }
+
+    /**
+     * Listens on socket, creating its directory for this user alone if there is none. A socket file
+     * nobody listens on is left over from a daemon that died, and replaced. Whoever owns the socket
+     * or its directory gets every script sent to it, so both must belong to this user; the directory
+     * may also belong to root, as /tmp does.
+     */
+    public static Daemon start(Path socket) throws IOException {
+        UserPrincipal user = socket.getFileSystem().getUserPrincipalLookupService()
+            .lookupPrincipalByName(System.getProperty("user.name"));
+        Path dir = socket.toAbsolutePath().getParent();
+        if (Files.notExists(dir))
+            Files.createDirectories(dir, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        UserPrincipal dirOwner = Files.getOwner(dir);
+        if (!dirOwner.equals(user) && !dirOwner.getName().equals("root"))
+            throw new IOException(dir + " belongs to " + dirOwner.getName() + ", not to " + user.getName());
+
+        if (Files.exists(socket, LinkOption.NOFOLLOW_LINKS)) {
+            UserPrincipal owner = Files.getOwner(socket, LinkOption.NOFOLLOW_LINKS);
+            if (!owner.equals(user)) throw new IOException(socket + " belongs to " + owner.getName() + ", not to " + user.getName());
+            if (isRunning(socket)) throw new IOException("A daemon is already listening on " + socket);
+            Files.delete(socket);
+        }
+
+        ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        try {
+            server.bind(UnixDomainSocketAddress.of(socket));
+            // scripts run with the owner's rights, nobody else gets to send them
+            Files.setPosixFilePermissions(socket, PosixFilePermissions.fromString("rw-------"));
+        } catch (IOException | UnsupportedOperationException e) {
+            server.close();
+            throw e;
+        }
+        return new Daemon(socket, server);
+    }
+
+    public static boolean isRunning(Path socket) {
+        try {
+            // connecting is the whole probe, nothing is sent
+            SocketChannel.open(UnixDomainSocketAddress.of(socket)).close();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public static Response request(Path socket, String source) throws IOException {
+        try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socket))) {
+            ByteBuffer request = ByteBuffer.wrap(source.getBytes(StandardCharsets.US_ASCII));
+            while (request.hasRemaining()) channel.write(request);
+            channel.shutdownOutput();
+
+            String[] lines = new String(Channels.newInputStream(channel).readAllBytes(), StandardCharsets.US_ASCII).split("\n");
+            List<String> out = new ArrayList<>(), err = new ArrayList<>();
+            for (int i = 1; i < lines.length; i++)
+                (lines[i].startsWith("1 ") ? out : err).add(lines[i].substring(2));
+            return new Response(Integer.parseInt(lines[0]), out, err);
+        }
+    }
+
+    public Path socket() {
+        return socket;
+    }
+
+    // blocks until the daemon is closed
+    public void join() throws InterruptedException {
+        acceptor.join();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            server.close();
+        } finally {
+            Files.deleteIfExists(socket);
+        }
+    }
+
+    public CacheStats cacheStats() {
+        return compiled.stats();
+    }
+
+    int cachedCount() {
+        return (int) compiled.size();
+    }
+
+    private void accept() {
+        while (server.isOpen()) {
+            try {
+                SocketChannel connection = server.accept();
+                Thread.ofVirtual().start(() -> serve(connection));
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                System.err.println("jlox daemon: " + e.getMessage());
+            }
+        }
+    }
+
+    private void serve(SocketChannel connection) {
+        try (connection) {
+            StringBuilder response = new StringBuilder();
+            String source = read(connection);
+            if (source == null) {
+                response.append(64).append('\n').append("2 Request exceeds ").append(MAX_REQUEST_BYTES).append(" bytes\n");
+            } else {
+                try {
+                    Pipeline.Result result = Pipeline.run(compiled.compile(source));
+                    response.append(result.status().exitCode).append('\n');
+                    if (result.status() == Pipeline.Status.Ok) append(response, "1 ", Lox.stringify(result.value()));
+                    for (String d : result.diagnostics()) append(response, "2 ", d);
+                } catch (RuntimeException | StackOverflowError e) {
+                    // confined to this request, the client still gets an answer
+                    response.setLength(0);
+                    response.append(Pipeline.Status.RuntimeError.exitCode).append('\n');
+                    append(response, "2 ", "Interpreter failed: " + e);
+                }
+            }
+
+            ByteBuffer bytes = ByteBuffer.wrap(response.toString().getBytes(StandardCharsets.US_ASCII));
+            while (bytes.hasRemaining()) connection.write(bytes);
+        } catch (IOException e) {
+            // the client went away, nobody left to tell
+        }
+    }
+
+    // null if the request is too large
+    private static String read(SocketChannel connection) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        while (connection.read(buffer) >= 0) {
+            if (bytes.size() + buffer.position() > MAX_REQUEST_BYTES) return null;
+            bytes.write(buffer.array(), 0, buffer.position());
+            buffer.clear();
+        }
+        return bytes.toString(StandardCharsets.US_ASCII);
+    }
+
+    private static void append(StringBuilder response, String prefix, String text) {
+        for (String line : text.split("\n", -1)) response.append(prefix).append(line).append('\n');
+    }
+}
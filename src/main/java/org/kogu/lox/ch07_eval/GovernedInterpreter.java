@@ -0,0 +1,149 @@
+package org.kogu.lox.ch07_eval;
+
+import org.kogu.lox.ch05_ast.Expr;
+import org.kogu.lox.ch05_ast.Literal;
+import org.kogu.lox.ch07_eval.BudgetExceededError.Resource;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * {@link Interpreter} that stops an evaluation once it exceeds a {@link Budget}.
+ * <p>
+ * Every node visited is a step. The step limit is exact; the clock and the bytes allocated by the
+ * evaluating thread are only read every {@code checkInterval} steps, so a small tree is never timed at
+ * all and a large one pays for a clock read once per interval. Running out of any of them raises a
+ * {@link BudgetExceededError}.
+ * <p>
+ * Nesting depth can be capped as well, so that a deeply nested tree fails with a budget error rather
+ * than a {@link StackOverflowError} part-way through a caller's stack.
+ * <p>
+ * Thread-safe: each call to {@link #eval} meters itself.
+ */
+public final class GovernedInterpreter {
+    public static final int DEFAULT_CHECK_INTERVAL = 1024;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+        ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean t ? t : null;
+
+    public record Budget(long maxSteps, Duration timeout, long maxAllocatedBytes, int maxDepth) {
+        public Budget {
+            if (maxSteps < 1) throw new IllegalArgumentException("maxSteps must be positive: " + maxSteps);
+            if (maxDepth < 1) throw new IllegalArgumentException("maxDepth must be positive: " + maxDepth);
+            if (timeout.isNegative()) throw new IllegalArgumentException("Negative timeout: " + timeout);
+            if (maxAllocatedBytes < 0) throw new IllegalArgumentException("Negative maxAllocatedBytes: " + maxAllocatedBytes);
+        }
+
+        public static Budget unlimited() {
+            return new Budget(Long.MAX_VALUE, Duration.ofNanos(Long.MAX_VALUE), Long.MAX_VALUE, Integer.MAX_VALUE);
+        }
+
+        public Budget withMaxSteps(long maxSteps) {
+            return new Budget(maxSteps, timeout, maxAllocatedBytes, maxDepth);
+        }
+
+        public Budget withTimeout(Duration timeout) {
+            return new Budget(maxSteps, timeout, maxAllocatedBytes, maxDepth);
+        }
+
+        public Budget withMaxAllocatedBytes(long maxAllocatedBytes) {
+            return new Budget(maxSteps, timeout, maxAllocatedBytes, maxDepth);
+        }
+
+        public Budget withMaxDepth(int maxDepth) {
+            return new Budget(maxSteps, timeout, maxAllocatedBytes, maxDepth);
+        }
+
+        boolean limitsAllocation() {
+            return maxAllocatedBytes != Long.MAX_VALUE;
+        }
+    }
+
+    private final Budget budget;
+    private final int checkInterval;
+    private final long timeoutNanos;
+
+    public GovernedInterpreter(Budget budget) {
+        this(budget, DEFAULT_CHECK_INTERVAL);
+    }
+
+    public GovernedInterpreter(Budget budget, int checkInterval) {
+        if (checkInterval < 1) throw new IllegalArgumentException("checkInterval must be positive: " + checkInterval);
+        if (budget.limitsAllocation() && (THREADS == null || !THREADS.isThreadAllocatedMemoryEnabled()))
+            throw new UnsupportedOperationException("This JVM does not measure per-thread allocation");
+
+        this.budget = Objects.requireNonNull(budget);
+        this.checkInterval = checkInterval;
+        this.timeoutNanos = saturatedNanos(budget.timeout());
+    }
+
+    public Budget budget() {
+        return budget;
+    }
+
+    public Object eval(Expr expr) {
+        return LoxString.flatten(new Meter().eval(expr));
+    }
+
+    private static long saturatedNanos(Duration d) {
+        try {
+            return d.toNanos();
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private final class Meter {
+        private final long startNanos = System.nanoTime();
+        private final long startBytes = budget.limitsAllocation() ? THREADS.getCurrentThreadAllocatedBytes() : 0;
+        private long steps;
+        private int depth;
+        // the step at which to stop and look at the clock and the heap
+        private long nextCheck = Math.min(checkInterval, budget.maxSteps());
+
+        private Object eval(Expr expr) {
+            if (++steps > nextCheck) check();
+            if (++depth > budget.maxDepth()) throw new BudgetExceededError(Resource.Depth, budget.maxDepth(), depth);
+            try {
+                return evalNode(expr);
+            } finally {
+                depth--;
+            }
+        }
+
+        private Object evalNode(Expr expr) {
+            return switch (expr) {
+                case Expr.Binary b -> {
+                    Object a = eval(b.lhs());
+                    yield switch (b.op()) {
+                        case Or -> Objects.equals(a, Boolean.TRUE) ? Boolean.TRUE : eval(b.rhs());
+                        case And -> Objects.equals(a, Boolean.FALSE) ? Boolean.FALSE : eval(b.rhs());
+                        default -> Interpreter.apply(b.op(), a, eval(b.rhs()));
+                    };
+                }
+                case Expr.Grouping(var e) -> eval(e);
+                case Expr.Unary u -> Interpreter.apply(u.op(), eval(u.expr()));
+                case Expr.Variable v -> throw Interpreter.undefined(v.name());
+                case Literal literal -> literal.value();
+            };
+        }
+
+        private void check() {
+            if (steps > budget.maxSteps())
+                throw new BudgetExceededError(Resource.Steps, budget.maxSteps(), steps);
+
+            long elapsed = System.nanoTime() - startNanos;
+            if (elapsed > timeoutNanos)
+                throw new BudgetExceededError(Resource.Time, timeoutNanos, elapsed);
+
+            if (budget.limitsAllocation()) {
+                long allocated = THREADS.getCurrentThreadAllocatedBytes() - startBytes;
+                if (allocated > budget.maxAllocatedBytes())
+                    throw new BudgetExceededError(Resource.Allocation, budget.maxAllocatedBytes(), allocated);
+            }
+
+            nextCheck = Math.min(nextCheck + checkInterval, budget.maxSteps());
+        }
+    }
+}
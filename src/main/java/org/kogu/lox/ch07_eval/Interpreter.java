@@ -1,7 +1,10 @@
 package org.kogu.lox.ch07_eval;
 
+import org.kogu.lox.ch04_scanning.Token;
+import org.kogu.lox.ch05_ast.BinaryOperator;
 import org.kogu.lox.ch05_ast.Expr;
 import org.kogu.lox.ch05_ast.Literal;
+import org.kogu.lox.ch05_ast.UnaryOperator;
 
 import java.util.Objects;
 
@@ -10,90 +13,104 @@ import static org.kogu.lox.ch05_ast.BinaryOperator.asToken;
 
 public final class Interpreter {
 
+    // strings come back as plain Strings, however they were built
     public static Object eval(Expr expr) {
+        return LoxString.flatten(evaluate(expr));
+    }
+
+    private static Object evaluate(Expr expr) {
         return switch (expr) {
             case Expr.Binary b -> evalBinary(b);
-            case Expr.Grouping(var e) -> eval(e);
+            case Expr.Grouping(var e) -> evaluate(e);
             case Expr.Unary u -> evalUnary(u);
+            case Expr.Variable v -> throw undefined(v.name());
             case Literal literal -> literal.value();
         };
     }
 
     private static Object evalUnary(Expr.Unary expr) {
-        Object o = eval(expr.expr());
-        return switch (expr.op()) {
-            case Negative -> o instanceof Integer n ? -n : -((double) o);
-            case Not -> !toBoolean(o);
-        };
+        return apply(expr.op(), evaluate(expr.expr()));
     }
 
     private static Object evalBinary(Expr.Binary expr) {
-        Object a = eval(expr.lhs());
+        Object a = evaluate(expr.lhs());
         return switch (expr.op()) {
-            case Eq -> Objects.equals(a, eval(expr.rhs()));
-            case NotEq -> !Objects.equals(a, eval(expr.rhs()));
-            case LessThan -> {
-                Object b = eval(expr.rhs());
-                double da = (Double) a;
-                double db = (Double) b;
-                yield da < db;
-            }
-            case GreaterThan -> {
-                Object b = eval(expr.rhs());
-                double da = (Double) a;
-                double db = (Double) b;
-                yield da > db;
-            }
-            case LessThanEq -> {
-                Object b = eval(expr.rhs());
-                double da = (Double) a;
-                double db = (Double) b;
-                yield da <= db;
-            }
-            case GreaterThanEq -> {
-                Object b = eval(expr.rhs());
-                double da = (Double) a;
-                double db = (Double) b;
-                yield da >= db;
+            case Or -> Objects.equals(a, Boolean.TRUE) ? Boolean.TRUE : evaluate(expr.rhs());
+            case And -> Objects.equals(a, Boolean.FALSE) ? Boolean.FALSE : evaluate(expr.rhs());
+            default -> apply(expr.op(), a, evaluate(expr.rhs()));
+        };
+    }
+
+    public static Object apply(UnaryOperator op, Object o) {
+        return switch (op) {
+            case Negative -> {
+                if (o instanceof Integer n) yield -n;
+                if (o instanceof Double d) yield -d;
+                throw new LoxRuntimeError(UnaryOperator.asToken(op), "Operand must be a number.");
             }
+            case Not -> !toBoolean(o);
+        };
+    }
+
+    // strict operators only, Or/And decide whether to evaluate rhs at all
+    // int op int stays an int, any other pair of numbers is widened to double
+    public static Object apply(BinaryOperator op, Object a, Object b) {
+        return switch (op) {
+            case Eq -> isEqual(a, b);
+            case NotEq -> !isEqual(a, b);
+            case LessThan -> toDouble(op, a) < toDouble(op, b);
+            case GreaterThan -> toDouble(op, a) > toDouble(op, b);
+            case LessThanEq -> toDouble(op, a) <= toDouble(op, b);
+            case GreaterThanEq -> toDouble(op, a) >= toDouble(op, b);
             case Add -> {
-                Object b = eval(expr.rhs());
                 if (a instanceof Integer ia && b instanceof Integer ib) yield ia + ib;
-                if (a instanceof String || b instanceof String)   yield a.toString() + b.toString();
+                if (isString(a) || isString(b)) yield LoxString.concat(a, b);
 
-                double da = (Double) a;
-                double db = (Double) b;
-                yield da + db;
+                yield toDouble(op, a) + toDouble(op, b);
             }
             case Subtract -> {
-                Object b = eval(expr.rhs());
                 if (a instanceof Integer ia && b instanceof Integer ib) yield ia - ib;
-                double da = (Double) a;
-                double db = (Double) b;
-                yield da - db;
+                yield toDouble(op, a) - toDouble(op, b);
             }
             case Multiply -> {
-                Object b = eval(expr.rhs());
                 if (a instanceof Integer ia && b instanceof Integer ib) yield ia * ib;
-                double da = (Double) a;
-                double db = (Double) b;
-                yield da * db;
+                yield toDouble(op, a) * toDouble(op, b);
             }
             case Divide -> {
-                Object b = eval(expr.rhs());
-                if (b instanceof Number ib && ib.doubleValue() == 0) {
-                    throw new LoxRuntimeError(asToken(Divide), "Cannot divide by zero");
+                if (a instanceof Integer ia && b instanceof Integer ib) {
+                    if (ib == 0) throw new LoxRuntimeError(asToken(Divide), "Cannot divide by zero");
+                    yield ia / ib;
                 }
-                if (a instanceof Integer ia && b instanceof Integer ib) yield ia / ib;
-                double da = (Double) a;
-                double db = (Double) b;
+                double da = toDouble(op, a);
+                double db = toDouble(op, b);
+                if (db == 0) throw new LoxRuntimeError(asToken(Divide), "Cannot divide by zero");
                 yield da / db;
             }
-            case Or -> Objects.equals(a, Boolean.TRUE) ? Boolean.TRUE : eval(expr.rhs());
-            case And -> Objects.equals(a, Boolean.FALSE) ? Boolean.FALSE : eval(expr.rhs());
+            case Or, And -> throw new IllegalArgumentException("Short-circuit operator: " + op);
         };
     }
 
+    private static double toDouble(BinaryOperator op, Object o) {
+        if (o instanceof Integer n) return n;
+        if (o instanceof Double d) return d;
+        throw new LoxRuntimeError(asToken(op), "Operands must be numbers.");
+    }
+
+    static LoxRuntimeError undefined(Token name) {
+        return new LoxRuntimeError(name, "Undefined variable '" + name.lexeme() + "'.");
+    }
+
+    // a literal "ab" equals the concatenation "a" + "b"
+    public static boolean isEqual(Object a, Object b) {
+        if (a instanceof LoxString s) a = s.toString();
+        if (b instanceof LoxString s) b = s.toString();
+        return Objects.equals(a, b);
+    }
+
+    private static boolean isString(Object o) {
+        return o instanceof String || o instanceof LoxString;
+    }
+
     // null or false -> falsey
     // everything else -> truthy
     @SuppressWarnings("BooleanMethodIsAlwaysInverted")
@@ -0,0 +1,132 @@
+package org.kogu.lox.ch07_eval;
+
+import org.kogu.lox.ch06_parser.DiagnosticWriter;
+import org.kogu.lox.ch06_parser.ErrorReporter;
+
+import java.io.IOException;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Scanner;
+
+@SuppressWarnings("DuplicatedCode")
+public final class Lox {
+    public static void main(String... args) throws IOException, InterruptedException {
+        if (args.length > 0 && args[0].equals("--batch")) {
+            runBatch(Arrays.asList(args).subList(1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--daemon")) {
+            if (args.length > 2) usage();
+            runDaemon(args.length == 2 ? Path.of(args[1]) : Daemon.defaultSocket());
+            return;
+        }
+
+        int len = args.length;
+        switch (len) {
+            case 0 -> runPrompt();
+            case 1 -> runFile(args[0]);
+            default -> usage();
+        }
+    }
+
+    private static void usage() {
+        System.out.println("Usage: jlox [script]");
+        System.out.println("       jlox --batch [--threads n] (directory | glob | script)...");
+        System.out.println("       jlox --daemon [socket]");
+        System.exit(64);
+    }
+
+    private static void runFile(String filePath) throws IOException {
+        String src;
+        try {
+            src = Files.readString(Paths.get(filePath), StandardCharsets.US_ASCII);
+        } catch (CharacterCodingException e) {
+            // a binary file, not worth scanning
+            System.err.println(filePath + " is not a US-ASCII text file.");
+            System.exit(65);
+            return;
+        }
+        int exitCode;
+        // a script full of garbage must not keep the run waiting on stderr
+        try (DiagnosticWriter diagnostics = new DiagnosticWriter(System.err, 1024, 100)) {
+            exitCode = run(src, diagnostics.reporter(null));
+        }
+        if (exitCode != 0)
+            System.exit(exitCode);
+    }
+
+    private static void runPrompt() {
+        try (Scanner scanner = new Scanner(System.in)) {
+            while (true) {
+                System.out.print("> ");
+                String line = scanner.nextLine();
+                if (line == null) break;
+
+                run(line, ErrorReporter.console());
+            }
+        }
+    }
+
+    // every script in one JVM, so the JIT stays warm from the first file to the last
+    private static void runBatch(List<String> args) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (args.size() >= 2 && args.get(0).equals("--threads")) {
+            try {
+                threads = Integer.parseInt(args.get(1));
+            } catch (NumberFormatException e) {
+                usage();
+            }
+            args = args.subList(2, args.size());
+        }
+        if (args.isEmpty() || threads < 1) usage();
+
+        List<BatchRunner.FileResult> results = new BatchRunner(threads).run(BatchRunner.expand(args));
+        BatchRunner.printSummary(results, System.out);
+        int exitCode = BatchRunner.exitCode(results);
+        if (exitCode != 0)
+            System.exit(exitCode);
+    }
+
+    // until killed, the launcher sends `jlox script` here while the socket is up
+    private static void runDaemon(Path socket) throws IOException, InterruptedException {
+        Daemon daemon;
+        try {
+            daemon = Daemon.start(socket);
+        } catch (IOException e) {
+            System.err.println("Could not start the daemon: " + e.getMessage());
+            System.exit(69);
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                daemon.close();
+            } catch (IOException e) {
+                System.err.println("Could not remove " + socket + ": " + e.getMessage());
+            }
+        }));
+        System.err.println("jlox daemon listening on " + socket);
+        daemon.join();
+    }
+
+    // exit code of the run, 0 when it printed a value; compile errors go to reporter
+    private static int run(String src, ErrorReporter reporter) {
+        Pipeline.Result result = new Pipeline(src, reporter).run();
+        switch (result.status()) {
+            case Ok -> System.out.println(stringify(result.value()));
+            case RuntimeError -> System.err.println(result.diagnostics().getLast());
+            case CompileError -> {}
+        }
+        return result.status().exitCode;
+    }
+
+    static String stringify(Object value) {
+        if (value == null) return "nil";
+        String s = value.toString();
+        return value instanceof Double && s.endsWith(".0") ? s.substring(0, s.length() - 2) : s;
+    }
+}
@@ -2,11 +2,17 @@ package org.kogu.lox.ch07_eval;
 
 import org.kogu.lox.ch04_scanning.Token;
 
+/**
+ * Error raised by a Lox program, positioned by its {@link #token}.
+ * <p>
+ * Stackless: the JVM stack says where the interpreter was, not where the script went wrong, and
+ * filling it in made up most of the cost of every failing evaluation.
+ */
 public final class LoxRuntimeError extends RuntimeException {
     public final Token token;
 
     public LoxRuntimeError(Token token, String message) {
-        super(message);
+        super(message, null, false, false);
         this.token = token;
     }
 }
@@ -0,0 +1,106 @@
+package org.kogu.lox.ch07_eval;
+
+import java.util.ArrayDeque;
+
+/**
+ * Runtime value of a string built by {@code +}.
+ * <p>
+ * Concatenation links the two operands into a rope node instead of copying them, so building a
+ * string out of n pieces costs O(n) rather than O(n^2). The characters are copied once, the first
+ * time the value is printed, compared or hashed; from then on the node holds the flat string.
+ * <p>
+ * Literal strings stay plain {@link String}s - use {@link Interpreter#isEqual} to compare values.
+ * Ropes never leave an evaluator: every public {@code eval} hands out a {@link #flatten flattened}
+ * {@code String}, which callers can compare and test with {@code instanceof} as they would expect.
+ */
+public final class LoxString implements CharSequence {
+    // concatenations shorter than this are copied right away, tiny rope nodes cost more than they save
+    private static final int FLAT_THRESHOLD = 32;
+
+    private record Concat(LoxString lhs, LoxString rhs) {}
+
+    private final int length;
+    // String once flattened, Concat until then - one field so readers never see half a switch-over
+    private volatile Object repr;
+
+    private LoxString(String s) {
+        this.length = s.length();
+        this.repr = s;
+    }
+
+    private LoxString(LoxString lhs, LoxString rhs) {
+        this.length = Math.addExact(lhs.length, rhs.length);
+        this.repr = new Concat(lhs, rhs);
+    }
+
+    public static LoxString of(Object value) {
+        return switch (value) {
+            case LoxString s -> s;
+            case null -> new LoxString("nil");
+            default -> new LoxString(value.toString());
+        };
+    }
+
+    public static LoxString concat(Object a, Object b) {
+        LoxString lhs = of(a), rhs = of(b);
+        if (lhs.length == 0) return rhs;
+        if (rhs.length == 0) return lhs;
+        if (lhs.length + rhs.length <= FLAT_THRESHOLD) return new LoxString(lhs.toString() + rhs.toString());
+        return new LoxString(lhs, rhs);
+    }
+
+    // value as it leaves an evaluator: a LoxString becomes the String it stands for
+    static Object flatten(Object value) {
+        return value instanceof LoxString s ? s.toString() : value;
+    }
+
+    public boolean isFlat() {
+        return repr instanceof String;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return toString().charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        if (repr instanceof String s) return s;
+
+        // iterative: ropes built by long `+` chains are as deep as the chain is long
+        StringBuilder sb = new StringBuilder(length);
+        ArrayDeque<LoxString> pending = new ArrayDeque<>();
+        pending.push(this);
+        while (!pending.isEmpty()) {
+            Object r = pending.pop().repr;
+            if (r instanceof Concat(var lhs, var rhs)) {
+                pending.push(rhs);
+                pending.push(lhs);
+            } else sb.append((String) r);
+        }
+
+        String flat = sb.toString();
+        repr = flat;
+        return flat;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof LoxString other && length == other.length && toString().equals(other.toString());
+    }
+
+    @Override
+    public int hashCode() {
+        return toString().hashCode();
+    }
+}
@@ -0,0 +1,148 @@
+package org.kogu.lox.ch07_eval;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.kogu.lox.ch04_scanning.Token;
+import org.kogu.lox.ch05_ast.Expr;
+import org.kogu.lox.ch05_ast.Fingerprint;
+import org.kogu.lox.ch05_ast.Literal;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * {@link Interpreter#eval} behind a bounded, least-recently-used result cache.
+ * <p>
+ * Entries are keyed by the structure of the expression and the values of the variables it reads,
+ * so a re-parsed copy of an expression over the same values hits the same entry. A miss evaluates
+ * over exactly the values in its key. Every {@link Expr} node is side-effect free, and an evaluation
+ * that raises a {@link LoxRuntimeError} is never cached - it is re-evaluated, and fails again, on
+ * the next call.
+ */
+public final class MemoizingInterpreter {
+    // Guava caches don't hold nulls
+    private static final Object NIL = new Object();
+    // in a key for a variable that is not defined, one in a branch never taken may well not be
+    private static final Object UNDEFINED = new Object();
+
+    // the value of a variable, or a LoxRuntimeError when it is undefined; Environment::get is one
+    @FunctionalInterface
+    public interface Variables {
+        Object get(Token name);
+    }
+
+    private static final Variables NONE = name -> {throw Interpreter.undefined(name);};
+
+    private final Cache<Key, Object> cache;
+
+    public MemoizingInterpreter(long maximumSize) {
+        this(CacheBuilder.newBuilder().maximumSize(maximumSize));
+    }
+
+    // for tests: a single segment evicts exactly at maximumSize
+    MemoizingInterpreter(CacheBuilder<Object, Object> builder) {
+        this.cache = builder.recordStats().build();
+    }
+
+    // every variable is undefined
+    public Object eval(Expr expr) {
+        return eval(expr, NONE);
+    }
+
+    public Object eval(Expr expr, Variables variables) {
+        Map<String, Token> read = new LinkedHashMap<>();
+        variables(expr, read);
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (Token name : read.values()) values.put(name.lexeme(), valueOf(variables, name));
+
+        try {
+            Object o = cache.get(new Key(Fingerprint.of(expr), expr, values.values().toArray()), () -> {
+                Object value = eval(expr, values);
+                return value == null ? NIL : value;
+            });
+            return o == NIL ? null : LoxString.flatten(o);
+        } catch (UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Interpreter threw a checked exception", e.getCause());
+        }
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    private static Object valueOf(Variables variables, Token name) {
+        try {
+            return variables.get(name);
+        } catch (LoxRuntimeError e) {
+            return UNDEFINED;
+        }
+    }
+
+    // each name once, in the order the tree reads them
+    private static void variables(Expr expr, Map<String, Token> names) {
+        switch (expr) {
+            case Expr.Binary b -> {
+                variables(b.lhs(), names);
+                variables(b.rhs(), names);
+            }
+            case Expr.Grouping(var e) -> variables(e, names);
+            case Expr.Unary u -> variables(u.expr(), names);
+            case Expr.Variable v -> names.putIfAbsent(v.name().lexeme(), v.name());
+            case Literal literal -> {}
+        }
+    }
+
+    // Interpreter.eval, with variables read from values
+    private static Object eval(Expr expr, Map<String, Object> values) {
+        return switch (expr) {
+            case Expr.Binary b -> {
+                Object a = eval(b.lhs(), values);
+                yield switch (b.op()) {
+                    case Or -> Objects.equals(a, Boolean.TRUE) ? Boolean.TRUE : eval(b.rhs(), values);
+                    case And -> Objects.equals(a, Boolean.FALSE) ? Boolean.FALSE : eval(b.rhs(), values);
+                    default -> Interpreter.apply(b.op(), a, eval(b.rhs(), values));
+                };
+            }
+            case Expr.Grouping(var e) -> eval(e, values);
+            case Expr.Unary u -> Interpreter.apply(u.op(), eval(u.expr(), values));
+            case Expr.Variable v -> {
+                Object value = values.get(v.name().lexeme());
+                if (value == UNDEFINED) throw Interpreter.undefined(v.name());
+                yield value;
+            }
+            case Literal literal -> literal.value();
+        };
+    }
+
+    // values are those of the variables expr reads, in the order it reads them
+    private record Key(long fingerprint, Expr expr, Object[] values) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other &&
+                   fingerprint == other.fingerprint &&
+                   Arrays.equals(values, other.values) &&
+                   (expr == other.expr || expr.equals(other.expr));
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(fingerprint) + Arrays.hashCode(values);
+        }
+    }
+}
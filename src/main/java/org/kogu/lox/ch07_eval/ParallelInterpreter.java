@@ -0,0 +1,182 @@
+package org.kogu.lox.ch07_eval;
+
+import org.kogu.lox.ch05_ast.BinaryOperator;
+import org.kogu.lox.ch05_ast.Expr;
+import org.kogu.lox.ch05_ast.Literal;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * {@link Interpreter} that evaluates both operands of a large {@code Binary} in parallel.
+ * <p>
+ * A node forks its rhs onto a {@link ForkJoinPool} only when each operand holds at least
+ * {@code threshold} nodes; smaller subtrees are handed to {@link StackInterpreter} as they are, and
+ * a tree that is small as a whole never touches the pool. Nodes above the threshold are walked in a
+ * loop as well, so no chain is too deep for a worker thread's stack. Sizes are counted, not
+ * estimated: a large tree once as a whole, then at each node only the smaller operand, counted a
+ * node at a time against the larger one, whose size follows from the parent's. That is at most
+ * n log n visits, and only above the threshold, next to the n of evaluating the tree.
+ * <p>
+ * Results and errors are those of {@link Interpreter}: when both operands fail, the lhs error is the
+ * one thrown, and the rhs of {@code or}/{@code and} is only evaluated once the lhs asked for it.
+ */
+public final class ParallelInterpreter {
+    public static final int DEFAULT_THRESHOLD = 1 << 14;
+
+    // the lhs of a Pending node that is still being evaluated
+    private static final Object LHS_PENDING = new Object();
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    public ParallelInterpreter() {
+        this(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+    }
+
+    public ParallelInterpreter(ForkJoinPool pool, int threshold) {
+        if (threshold < 1) throw new IllegalArgumentException("threshold must be positive: " + threshold);
+        this.pool = Objects.requireNonNull(pool);
+        this.threshold = threshold;
+    }
+
+    public Object eval(Expr expr) {
+        // not worth a fork if no node could ever have two large operands
+        if (count(expr, 2L * threshold) < 2L * threshold) return StackInterpreter.evaluate(expr);
+        return LoxString.flatten(pool.invoke(new Eval(expr, count(expr, Long.MAX_VALUE))));
+    }
+
+    private final class Eval extends RecursiveTask<Object> {
+        private final Expr expr;
+        private final long size;
+
+        Eval(Expr expr, long size) {
+            this.expr = expr;
+            this.size = size;
+        }
+
+        @Override
+        protected Object compute() {
+            return eval(expr, size);
+        }
+
+        // size is the exact node count of expr. Nodes too large for StackInterpreter can still be
+        // as many as the tree is deep, so they wait in a loop, each for the value of an operand
+        private Object eval(Expr expr, long size) {
+            ArrayDeque<Pending> pending = new ArrayDeque<>();
+            while (true) {
+                Object value;
+                if (size < threshold) value = StackInterpreter.evaluate(expr);
+                else {
+                    switch (expr) {
+                        case Expr.Binary b -> {
+                            long lhs = lhsSize(b, size), rhs = size - 1 - lhs;
+                            // rhs of or/and depends on what lhs evaluated to, so only forks inside either operand
+                            boolean logical = b.op() == BinaryOperator.Or || b.op() == BinaryOperator.And;
+                            if (!logical && lhs >= threshold && rhs >= threshold) value = split(b, lhs, rhs);
+                            else if (!logical && lhs < threshold) {
+                                pending.push(new Pending(b, 0, StackInterpreter.evaluate(b.lhs())));
+                                expr = b.rhs();
+                                size = rhs;
+                                continue;
+                            } else {
+                                pending.push(new Pending(b, rhs, LHS_PENDING));
+                                expr = b.lhs();
+                                size = lhs;
+                                continue;
+                            }
+                        }
+                        case Expr.Grouping(var e) -> {
+                            expr = e;
+                            size--;
+                            continue;
+                        }
+                        case Expr.Unary u -> {
+                            pending.push(new Pending(u, 0, LHS_PENDING));
+                            expr = u.expr();
+                            size--;
+                            continue;
+                        }
+                        case Expr.Variable v -> throw Interpreter.undefined(v.name());
+                        case Literal literal -> value = literal.value();
+                    }
+                }
+
+                // hand the value up until a node still needs its rhs evaluated
+                Pending waiting = null;
+                while (waiting == null && !pending.isEmpty()) {
+                    Pending up = pending.pop();
+                    if (up.node() instanceof Expr.Unary u) value = Interpreter.apply(u.op(), value);
+                    else if (up.lhs() != LHS_PENDING) value = Interpreter.apply(up.op(), up.lhs(), value);
+                    else if (!(up.op() == BinaryOperator.Or && Objects.equals(value, Boolean.TRUE))
+                          && !(up.op() == BinaryOperator.And && Objects.equals(value, Boolean.FALSE))) waiting = up;
+                }
+                if (waiting == null) return value;
+
+                // or/and yield their rhs as it is, anything else applies itself to it
+                Expr.Binary b = (Expr.Binary) waiting.node();
+                if (b.op() != BinaryOperator.Or && b.op() != BinaryOperator.And) pending.push(new Pending(b, 0, value));
+                expr = b.rhs();
+                size = waiting.rhsSize();
+            }
+        }
+
+        // both operands are large
+        private Object split(Expr.Binary b, long lhs, long rhsSize) {
+            Eval rhs = new Eval(b.rhs(), rhsSize);
+            rhs.fork();
+            Object a;
+            try {
+                a = eval(b.lhs(), lhs);
+            } catch (RuntimeException | Error e) {
+                // lhs fails first, whatever rhs would have done
+                rhs.cancel(false);
+                throw e;
+            }
+            return Interpreter.apply(b.op(), a, rhs.join());
+        }
+    }
+
+    // a node above the threshold waiting for the operand below it: a Unary, or a Binary with its lhs
+    // value and the size of its rhs
+    private record Pending(Expr node, long rhsSize, Object lhs) {
+        BinaryOperator op() {
+            return ((Expr.Binary) node).op();
+        }
+    }
+
+    // nodes in a subtree, counting no further than limit; a loop, as left-deep chains are as deep as they are long
+    private static long count(Expr expr, long limit) {
+        ArrayDeque<Object> pending = new ArrayDeque<>();
+        pending.push(expr);
+        long n = 0;
+        for (; n < limit && !pending.isEmpty(); n++) step(pending);
+        return n;
+    }
+
+    // counts both operands a node at a time until the smaller one is done, the lhs of a chain
+    // parsed from `a + b + c` costs as little as its rhs leaf
+    private static long lhsSize(Expr.Binary b, long size) {
+        ArrayDeque<Object> lhs = new ArrayDeque<>(), rhs = new ArrayDeque<>();
+        lhs.push(b.lhs());
+        rhs.push(b.rhs());
+        for (long n = 0; ; n++) {
+            if (lhs.isEmpty()) return n;
+            if (rhs.isEmpty()) return size - 1 - n;
+            step(lhs);
+            step(rhs);
+        }
+    }
+
+    // node is an Object and never tested against `Literal`: see StackInterpreter.step()
+    private static void step(ArrayDeque<Object> pending) {
+        Object node = pending.pop();
+        if (node instanceof Expr.Binary b) {
+            pending.push(b.rhs());
+            pending.push(b.lhs());
+        } else if (node instanceof Expr.Grouping g) pending.push(g.expr());
+        else if (node instanceof Expr.Unary u) pending.push(u.expr());
+    }
+}
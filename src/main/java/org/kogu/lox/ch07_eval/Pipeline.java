@@ -0,0 +1,131 @@
+package org.kogu.lox.ch07_eval;
+
+import org.kogu.lox.ch04_scanning.Scanner;
+import org.kogu.lox.ch04_scanning.Token;
+import org.kogu.lox.ch05_ast.Expr;
+import org.kogu.lox.ch06_parser.Error;
+import org.kogu.lox.ch06_parser.ErrorReporter;
+import org.kogu.lox.ch06_parser.Parser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Source to tokens to {@link Expr} to value, for one source at a time.
+ * <p>
+ * Every diagnostic stays on the instance, nothing is static and nothing goes to the console: any
+ * number of pipelines can run side by side, one per thread. Each stage runs at most once and the
+ * later ones run the earlier ones first. A {@link Compiled} source can be kept and run again.
+ * <p>
+ * Scan and parse errors can also be handed to an {@link ErrorReporter} as they are found, for
+ * callers that print them as they go.
+ */
+public final class Pipeline {
+    // exit codes as sysexits.h has them, and as jlox has always used them
+    public enum Status {
+        Ok(0), CompileError(65), RuntimeError(70);
+
+        public final int exitCode;
+
+        Status(int exitCode) {
+            this.exitCode = exitCode;
+        }
+    }
+
+    // value is null for nil and for a failed run alike, status tells them apart
+    public record Result(Status status, Object value, List<String> diagnostics) {}
+
+    // expr is null when the source had errors; immutable, so one can be run by many threads
+    public record Compiled(Expr expr, List<String> diagnostics) {}
+
+    private final String source;
+    private final List<String> diagnostics = new ArrayList<>();
+    private final ErrorReporter reporter = new Collector();
+    private final ErrorReporter forward;
+    private List<Token> tokens;
+    private Optional<Expr> expr;
+    private Result result;
+
+    public Pipeline(String source) {
+        this(source, null);
+    }
+
+    // compile errors go to forward too, runtime errors don't
+    public Pipeline(String source, ErrorReporter forward) {
+        this.source = source;
+        this.forward = forward;
+    }
+
+    public List<Token> scan() {
+        if (tokens == null) {
+            Scanner scanner = new Scanner(source);
+            tokens = scanner.scanTokens();
+            diagnostics.addAll(scanner.diagnostics);
+            if (forward != null)
+                for (int i = 0; i < scanner.errors.size(); i++) {
+                    Scanner.ScanError e = scanner.errors.get(i);
+                    forward.handle(Error.scanError(scanner.diagnostics.get(i), e.line(), e.start(), e.end()));
+                }
+        }
+        return tokens;
+    }
+
+    // empty if the source did not scan or parse
+    public Optional<Expr> parse() {
+        if (expr == null) {
+            List<Token> scanned = scan();
+            expr = diagnostics.isEmpty() ? Parser.parse(scanned, reporter) : Optional.empty();
+            if (reporter.receivedError()) expr = Optional.empty();
+        }
+        return expr;
+    }
+
+    public Compiled compile() {
+        return new Compiled(parse().orElse(null), diagnostics());
+    }
+
+    public Result run() {
+        if (result == null) result = run(compile());
+        return result;
+    }
+
+    // evaluates what an earlier compile() produced, without scanning or parsing again
+    public static Result run(Compiled compiled) {
+        if (compiled.expr() == null) return new Result(Status.CompileError, null, compiled.diagnostics());
+        try {
+            return new Result(Status.Ok, Interpreter.eval(compiled.expr()), compiled.diagnostics());
+        } catch (LoxRuntimeError e) {
+            int line = e.token.line();
+            String message = line < 0 ? e.getMessage() : e.getMessage() + "\n[line " + line + "]";
+            List<String> diagnostics = new ArrayList<>(compiled.diagnostics());
+            diagnostics.add(message);
+            return new Result(Status.RuntimeError, null, List.copyOf(diagnostics));
+        }
+    }
+
+    public List<String> diagnostics() {
+        return List.copyOf(diagnostics);
+    }
+
+    private final class Collector implements ErrorReporter {
+        private boolean receivedError;
+
+        @Override
+        public void handle(Error error) {
+            receivedError = true;
+            diagnostics.add(error.msg());
+            if (forward != null) forward.handle(error);
+        }
+
+        @Override
+        public boolean receivedError() {
+            return receivedError;
+        }
+
+        @Override
+        public void reset() {
+            receivedError = false;
+        }
+    }
+}
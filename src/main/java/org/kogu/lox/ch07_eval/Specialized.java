@@ -0,0 +1,221 @@
+package org.kogu.lox.ch07_eval;
+
+import org.kogu.lox.ch05_ast.BinaryOperator;
+import org.kogu.lox.ch05_ast.Expr;
+
+import static org.kogu.lox.ch05_ast.BinaryOperator.Divide;
+import static org.kogu.lox.ch05_ast.BinaryOperator.asToken;
+
+/**
+ * Executable form of an {@link Expr} whose operators were picked from the {@link StaticType}s
+ * inferred by {@link TypeChecker}. Typed nodes call the matching {@code evalInt/evalDouble/evalBool}
+ * of their children with no runtime type checks; only {@link Fallback} re-discovers types.
+ * <p>
+ * Values and errors are the same as {@link TaggedInterpreter}'s.
+ */
+public sealed interface Specialized {
+    StaticType type();
+
+    default Object eval() {
+        return switch (type()) {
+            case Int -> evalInt();
+            case Double -> evalDouble();
+            case Bool -> evalBool();
+            default -> throw new IllegalStateException("No boxed form for " + this);
+        };
+    }
+
+    default int evalInt() {throw wrongType(StaticType.Int);}
+
+    default double evalDouble() {throw wrongType(StaticType.Double);}
+
+    default boolean evalBool() {throw wrongType(StaticType.Bool);}
+
+    private IllegalStateException wrongType(StaticType t) {
+        return new IllegalStateException(type() + " node evaluated as " + t + ": " + this);
+    }
+
+    // produces boxed values, typed entry points unbox
+    sealed interface Boxed extends Specialized {
+        Object eval();
+
+        default int evalInt() {return (Integer) eval();}
+
+        default double evalDouble() {return (Double) eval();}
+
+        default boolean evalBool() {return (Boolean) eval();}
+    }
+
+    // constants
+
+    record IntConst(int n) implements Specialized {
+        public StaticType type() {return StaticType.Int;}
+        public int evalInt() {return n;}
+    }
+
+    record DoubleConst(double d) implements Specialized {
+        public StaticType type() {return StaticType.Double;}
+        public double evalDouble() {return d;}
+    }
+
+    record BoolConst(boolean b) implements Specialized {
+        public StaticType type() {return StaticType.Bool;}
+        public boolean evalBool() {return b;}
+    }
+
+    // strings and nil
+    record Const(Object value, StaticType type) implements Boxed {
+        public Object eval() {return value;}
+    }
+
+    // int operand of a double operation
+    record Widen(Specialized expr) implements Specialized {
+        public StaticType type() {return StaticType.Double;}
+        public double evalDouble() {return expr.evalInt();}
+    }
+
+    // numbers
+
+    record IntNegate(Specialized expr) implements Specialized {
+        public StaticType type() {return StaticType.Int;}
+        public int evalInt() {return -expr.evalInt();}
+    }
+
+    record DoubleNegate(Specialized expr) implements Specialized {
+        public StaticType type() {return StaticType.Double;}
+        public double evalDouble() {return -expr.evalDouble();}
+    }
+
+    record IntArith(BinaryOperator op, Specialized lhs, Specialized rhs) implements Specialized {
+        public StaticType type() {return StaticType.Int;}
+
+        public int evalInt() {
+            int a = lhs.evalInt(), b = rhs.evalInt();
+            return switch (op) {
+                case Add -> a + b;
+                case Subtract -> a - b;
+                case Multiply -> a * b;
+                case Divide -> {
+                    if (b == 0) throw new LoxRuntimeError(asToken(Divide), "Cannot divide by zero");
+                    yield a / b;
+                }
+                default -> throw new IllegalStateException("Not an arithmetic operator: " + op);
+            };
+        }
+    }
+
+    record DoubleArith(BinaryOperator op, Specialized lhs, Specialized rhs) implements Specialized {
+        public StaticType type() {return StaticType.Double;}
+
+        public double evalDouble() {
+            double a = lhs.evalDouble(), b = rhs.evalDouble();
+            return switch (op) {
+                case Add -> a + b;
+                case Subtract -> a - b;
+                case Multiply -> a * b;
+                case Divide -> {
+                    if (b == 0) throw new LoxRuntimeError(asToken(Divide), "Cannot divide by zero");
+                    yield a / b;
+                }
+                default -> throw new IllegalStateException("Not an arithmetic operator: " + op);
+            };
+        }
+    }
+
+    record IntCompare(BinaryOperator op, Specialized lhs, Specialized rhs) implements Specialized {
+        public StaticType type() {return StaticType.Bool;}
+
+        public boolean evalBool() {
+            int a = lhs.evalInt(), b = rhs.evalInt();
+            return switch (op) {
+                case Eq -> a == b;
+                case NotEq -> a != b;
+                case LessThan -> a < b;
+                case GreaterThan -> a > b;
+                case LessThanEq -> a <= b;
+                case GreaterThanEq -> a >= b;
+                default -> throw new IllegalStateException("Not a comparison operator: " + op);
+            };
+        }
+    }
+
+    record DoubleCompare(BinaryOperator op, Specialized lhs, Specialized rhs) implements Specialized {
+        public StaticType type() {return StaticType.Bool;}
+
+        public boolean evalBool() {
+            double a = lhs.evalDouble(), b = rhs.evalDouble();
+            return switch (op) {
+                // Double.equals semantics: NaN == NaN, 0.0 != -0.0
+                case Eq -> Double.compare(a, b) == 0;
+                case NotEq -> Double.compare(a, b) != 0;
+                case LessThan -> a < b;
+                case GreaterThan -> a > b;
+                case LessThanEq -> a <= b;
+                case GreaterThanEq -> a >= b;
+                default -> throw new IllegalStateException("Not a comparison operator: " + op);
+            };
+        }
+    }
+
+    // booleans
+
+    record BoolNot(Specialized expr) implements Specialized {
+        public StaticType type() {return StaticType.Bool;}
+        public boolean evalBool() {return !expr.evalBool();}
+    }
+
+    record BoolEq(boolean negate, Specialized lhs, Specialized rhs) implements Specialized {
+        public StaticType type() {return StaticType.Bool;}
+        public boolean evalBool() {return (lhs.evalBool() == rhs.evalBool()) != negate;}
+    }
+
+    record BoolOr(Specialized lhs, Specialized rhs) implements Specialized {
+        public StaticType type() {return StaticType.Bool;}
+        public boolean evalBool() {return lhs.evalBool() || rhs.evalBool();}
+    }
+
+    record BoolAnd(Specialized lhs, Specialized rhs) implements Specialized {
+        public StaticType type() {return StaticType.Bool;}
+        public boolean evalBool() {return lhs.evalBool() && rhs.evalBool();}
+    }
+
+    // mixed types, values are boxed
+
+    record Not(Specialized expr) implements Specialized {
+        public StaticType type() {return StaticType.Bool;}
+
+        public boolean evalBool() {
+            Object o = expr.eval();
+            return o == null || Boolean.FALSE.equals(o);
+        }
+    }
+
+    record Equals(boolean negate, Specialized lhs, Specialized rhs) implements Specialized {
+        public StaticType type() {return StaticType.Bool;}
+        public boolean evalBool() {return Interpreter.isEqual(lhs.eval(), rhs.eval()) != negate;}
+    }
+
+    record Concat(Specialized lhs, Specialized rhs) implements Boxed {
+        public StaticType type() {return StaticType.String;}
+        public Object eval() {return LoxString.concat(lhs.eval(), rhs.eval());}
+    }
+
+    record Or(Specialized lhs, Specialized rhs, StaticType type) implements Boxed {
+        public Object eval() {
+            Object a = lhs.eval();
+            return Boolean.TRUE.equals(a) ? a : rhs.eval();
+        }
+    }
+
+    record And(Specialized lhs, Specialized rhs, StaticType type) implements Boxed {
+        public Object eval() {
+            Object a = lhs.eval();
+            return Boolean.FALSE.equals(a) ? a : rhs.eval();
+        }
+    }
+
+    // not proven monomorphic, types are checked at runtime
+    record Fallback(Expr expr, StaticType type) implements Boxed {
+        public Object eval() {return TaggedInterpreter.evaluate(expr);}
+    }
+}
@@ -0,0 +1,85 @@
+package org.kogu.lox.ch07_eval;
+
+import org.kogu.lox.ch05_ast.Expr;
+import org.kogu.lox.ch05_ast.Literal;
+import org.kogu.lox.ch06_parser.ErrorReporter;
+import org.kogu.lox.ch07_eval.Specialized.*;
+
+import static org.kogu.lox.ch05_ast.BinaryOperator.NotEq;
+import static org.kogu.lox.ch07_eval.StaticType.*;
+
+public final class Specializer {
+
+    public static Specialized specialize(Expr expr, ErrorReporter reporter) {
+        return specialize(expr, TypeChecker.check(expr, reporter));
+    }
+
+    public static Specialized specialize(Expr expr, TypeChecker types) {
+        return switch (expr) {
+            case Expr.Binary b -> binary(b, types);
+            case Expr.Grouping(var e) -> specialize(e, types);
+            case Expr.Unary u -> unary(u, types);
+            case Expr.Variable v -> new Fallback(v, types.typeOf(v));
+            case Literal literal -> constant(literal);
+        };
+    }
+
+    private static Specialized constant(Literal literal) {
+        return switch (literal) {
+            case Literal.Int(int n) -> new IntConst(n);
+            case Literal.Double(double d) -> new DoubleConst(d);
+            case Literal.Bool(boolean b) -> new BoolConst(b);
+            case Literal.String(var s) -> new Const(s, String);
+            case Literal.Nil _ -> new Const(null, Nil);
+        };
+    }
+
+    private static Specialized unary(Expr.Unary expr, TypeChecker types) {
+        StaticType t = types.typeOf(expr.expr());
+        return switch (expr.op()) {
+            case Negative -> switch (t) {
+                case Int -> new IntNegate(specialize(expr.expr(), types));
+                case Double -> new DoubleNegate(specialize(expr.expr(), types));
+                default -> new Fallback(expr, types.typeOf(expr));
+            };
+            case Not -> t == Bool
+                ? new BoolNot(specialize(expr.expr(), types))
+                : new Not(specialize(expr.expr(), types));
+        };
+    }
+
+    private static Specialized binary(Expr.Binary expr, TypeChecker types) {
+        StaticType t = types.typeOf(expr);
+        StaticType a = types.typeOf(expr.lhs());
+        StaticType b = types.typeOf(expr.rhs());
+        Specialized lhs = specialize(expr.lhs(), types);
+        Specialized rhs = specialize(expr.rhs(), types);
+
+        return switch (expr.op()) {
+            case Eq, NotEq -> {
+                boolean negate = expr.op() == NotEq;
+                if (a == Int && b == Int) yield new IntCompare(expr.op(), lhs, rhs);
+                if (a == Double && b == Double) yield new DoubleCompare(expr.op(), lhs, rhs);
+                if (a == Bool && b == Bool) yield new BoolEq(negate, lhs, rhs);
+                yield new Equals(negate, lhs, rhs);
+            }
+            case LessThan, GreaterThan, LessThanEq, GreaterThanEq -> {
+                if (a == Int && b == Int) yield new IntCompare(expr.op(), lhs, rhs);
+                if (a.isNumeric() && b.isNumeric()) yield new DoubleCompare(expr.op(), widen(lhs), widen(rhs));
+                yield new Fallback(expr, t);
+            }
+            case Add, Subtract, Multiply, Divide -> switch (t) {
+                case Int -> new IntArith(expr.op(), lhs, rhs);
+                case Double -> new DoubleArith(expr.op(), widen(lhs), widen(rhs));
+                case String -> new Concat(lhs, rhs);
+                default -> new Fallback(expr, t);
+            };
+            case Or -> a == Bool && b == Bool ? new BoolOr(lhs, rhs) : new Specialized.Or(lhs, rhs, t);
+            case And -> a == Bool && b == Bool ? new BoolAnd(lhs, rhs) : new Specialized.And(lhs, rhs, t);
+        };
+    }
+
+    private static Specialized widen(Specialized s) {
+        return s.type() == Int ? new Widen(s) : s;
+    }
+}
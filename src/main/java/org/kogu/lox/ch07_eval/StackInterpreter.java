@@ -0,0 +1,172 @@
+package org.kogu.lox.ch07_eval;
+
+import org.kogu.lox.ch05_ast.Expr;
+import org.kogu.lox.ch05_ast.Literal;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * {@link Interpreter} whose nesting depth is bounded by the heap, not by {@code -Xss}.
+ * <p>
+ * The top {@value #MAX_RECURSION} levels of a tree are walked recursively, which is the fastest way
+ * to evaluate the common, shallow case. Anything deeper is handed to an explicit loop: pending work
+ * lives on a continuation stack and intermediate results on an operand stack, both plain arrays
+ * that grow on demand.
+ * <p>
+ * Operators, evaluation order and errors are shared with {@link Interpreter}. An instance reuses its
+ * stacks across calls and is not thread-safe; {@link #evaluate(Expr)} keeps one per thread.
+ */
+public final class StackInterpreter {
+    // continuation states
+    private static final byte ENTER = 0, AFTER_LHS = 1, AFTER_RHS = 2, APPLY_UNARY = 3;
+
+    private static final int MAX_RECURSION = 256;
+    private static final int INITIAL_CAPACITY = 64;
+    // a thread that once evaluated a huge tree gives the memory back
+    private static final int RETAINED_CAPACITY = 4096;
+
+    private static final ThreadLocal<StackInterpreter> PER_THREAD = ThreadLocal.withInitial(StackInterpreter::new);
+
+    // Object[] rather than Expr[], see step()
+    private Object[] nodes = new Object[INITIAL_CAPACITY];
+    private byte[] states = new byte[INITIAL_CAPACITY];
+    private int nodeTop;
+
+    private Object[] values = new Object[INITIAL_CAPACITY];
+    private int valueTop;
+
+    public static Object evaluate(Expr expr) {
+        return PER_THREAD.get().eval(expr);
+    }
+
+    public Object eval(Expr expr) {
+        return LoxString.flatten(eval(expr, 0));
+    }
+
+    private Object eval(Expr expr, int depth) {
+        if (depth == MAX_RECURSION) return iterate(expr);
+
+        return switch (expr) {
+            case Expr.Binary b -> {
+                Object a = eval(b.lhs(), depth + 1);
+                yield switch (b.op()) {
+                    case Or -> Objects.equals(a, Boolean.TRUE) ? Boolean.TRUE : eval(b.rhs(), depth + 1);
+                    case And -> Objects.equals(a, Boolean.FALSE) ? Boolean.FALSE : eval(b.rhs(), depth + 1);
+                    default -> Interpreter.apply(b.op(), a, eval(b.rhs(), depth + 1));
+                };
+            }
+            case Expr.Grouping(var e) -> eval(e, depth + 1);
+            case Expr.Unary u -> Interpreter.apply(u.op(), eval(u.expr(), depth + 1));
+            case Expr.Variable v -> throw Interpreter.undefined(v.name());
+            case Literal literal -> literal.value();
+        };
+    }
+
+    // only entered from eval(), so the stacks are always empty here
+    private Object iterate(Expr expr) {
+        try {
+            push(expr, ENTER);
+            while (nodeTop > 0) {
+                int top = --nodeTop;
+                Object node = nodes[top];
+                byte state = states[top];
+                nodes[top] = null;
+                step(node, state);
+            }
+            return pop();
+        } finally {
+            reset();
+        }
+    }
+
+    // node is never cast to Expr and records are matched before `Literal`: checking one class against
+    // several interfaces (Expr, Literal) thrashes the JVM's secondary supers cache
+    private void step(Object node, byte state) {
+        switch (node) {
+            case Expr.Grouping(var e) -> push(e, ENTER);
+            case Expr.Unary u -> {
+                if (state == ENTER) {
+                    push(u, APPLY_UNARY);
+                    push(u.expr(), ENTER);
+                } else pushValue(Interpreter.apply(u.op(), pop()));
+            }
+            case Expr.Binary b -> {
+                switch (state) {
+                    case ENTER -> {
+                        push(b, AFTER_LHS);
+                        push(b.lhs(), ENTER);
+                    }
+                    case AFTER_LHS -> {
+                        switch (b.op()) {
+                            // short-circuit: keep lhs as the result, or drop it and let rhs produce it
+                            case Or -> {
+                                if (!Objects.equals(peek(), Boolean.TRUE)) {
+                                    pop();
+                                    push(b.rhs(), ENTER);
+                                }
+                            }
+                            case And -> {
+                                if (!Objects.equals(peek(), Boolean.FALSE)) {
+                                    pop();
+                                    push(b.rhs(), ENTER);
+                                }
+                            }
+                            default -> {
+                                push(b, AFTER_RHS);
+                                push(b.rhs(), ENTER);
+                            }
+                        }
+                    }
+                    default -> {
+                        Object rhs = pop();
+                        Object lhs = pop();
+                        pushValue(Interpreter.apply(b.op(), lhs, rhs));
+                    }
+                }
+            }
+            case Expr.Variable v -> throw Interpreter.undefined(v.name());
+            case Literal literal -> pushValue(literal.value());
+            default -> throw new IllegalStateException("Not an expression: " + node);
+        }
+    }
+
+    private void push(Expr expr, byte state) {
+        if (nodeTop == nodes.length) {
+            nodes = Arrays.copyOf(nodes, nodeTop * 2);
+            states = Arrays.copyOf(states, nodeTop * 2);
+        }
+        nodes[nodeTop] = expr;
+        states[nodeTop] = state;
+        nodeTop++;
+    }
+
+    private void pushValue(Object value) {
+        if (valueTop == values.length)
+            values = Arrays.copyOf(values, valueTop * 2);
+        values[valueTop++] = value;
+    }
+
+    private Object pop() {
+        Object o = values[--valueTop];
+        values[valueTop] = null;
+        return o;
+    }
+
+    private Object peek() {
+        return values[valueTop - 1];
+    }
+
+    private void reset() {
+        if (nodes.length > RETAINED_CAPACITY) {
+            nodes = new Object[INITIAL_CAPACITY];
+            states = new byte[INITIAL_CAPACITY];
+        } else Arrays.fill(nodes, 0, nodeTop, null);
+
+        if (values.length > RETAINED_CAPACITY) values = new Object[INITIAL_CAPACITY];
+        else Arrays.fill(values, 0, valueTop, null);
+
+        nodeTop = 0;
+        valueTop = 0;
+    }
+}
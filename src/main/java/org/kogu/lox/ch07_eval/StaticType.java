@@ -0,0 +1,31 @@
+package org.kogu.lox.ch07_eval;
+
+import org.kogu.lox.ch05_ast.Literal;
+
+public enum StaticType {
+    Int, Double, String, Bool, Nil,
+    // not known until runtime, eg: `true or 1`
+    Dynamic;
+
+    public boolean isNumeric() {
+        return this == Int || this == Double;
+    }
+
+    public boolean maybeNumeric() {
+        return isNumeric() || this == Dynamic;
+    }
+
+    public static StaticType of(Literal literal) {
+        return switch (literal) {
+            case Literal.Int _ -> Int;
+            case Literal.Double _ -> Double;
+            case Literal.String _ -> String;
+            case Literal.Bool _ -> Bool;
+            case Literal.Nil _ -> Nil;
+        };
+    }
+
+    public static StaticType join(StaticType a, StaticType b) {
+        return a == b ? a : Dynamic;
+    }
+}
@@ -0,0 +1,252 @@
+package org.kogu.lox.ch07_eval;
+
+import org.kogu.lox.ch05_ast.BinaryOperator;
+import org.kogu.lox.ch05_ast.Expr;
+import org.kogu.lox.ch05_ast.Literal;
+import org.kogu.lox.ch05_ast.UnaryOperator;
+
+import static java.lang.Double.doubleToLongBits;
+import static java.lang.Double.doubleToRawLongBits;
+import static java.lang.Double.longBitsToDouble;
+import static org.kogu.lox.ch05_ast.BinaryOperator.Divide;
+import static org.kogu.lox.ch05_ast.BinaryOperator.asToken;
+
+/**
+ * Evaluator variant of {@link Interpreter} that never boxes numbers.
+ * <p>
+ * Each node writes its result into one reusable register: a {@link Tag}, a {@code long} payload
+ * (an int, or the raw bits of a double) and a reference slot used only for strings. Binary nodes
+ * park the left operand in locals while the right one runs, so numeric expressions don't allocate.
+ * <p>
+ * Results and errors are the same as {@link Interpreter}'s. Not thread-safe.
+ */
+public final class TaggedInterpreter {
+    public enum Tag {Nil, Bool, Int, Double, String}
+
+    private Tag tag = Tag.Nil;
+    private long bits;
+    private Object ref;
+
+    public Tag eval(Expr expr) {
+        exec(expr);
+        return tag;
+    }
+
+    // boxed result, same shape as Interpreter.eval
+    public static Object evaluate(Expr expr) {
+        TaggedInterpreter interpreter = new TaggedInterpreter();
+        interpreter.exec(expr);
+        return interpreter.box();
+    }
+
+    public Tag tag() {return tag;}
+
+    public int intValue() {
+        expect(Tag.Int);
+        return (int) bits;
+    }
+
+    public double doubleValue() {
+        expect(Tag.Double);
+        return longBitsToDouble(bits);
+    }
+
+    public boolean boolValue() {
+        expect(Tag.Bool);
+        return bits != 0;
+    }
+
+    public String stringValue() {
+        expect(Tag.String);
+        return ref.toString();
+    }
+
+    public Object box() {
+        return switch (tag) {
+            case Nil -> null;
+            case Bool -> bits != 0;
+            case Int -> (int) bits;
+            case Double -> longBitsToDouble(bits);
+            case String -> LoxString.flatten(ref);
+        };
+    }
+
+    private void expect(Tag expected) {
+        if (tag != expected)
+            throw new IllegalStateException("Register holds " + tag + ", not " + expected);
+    }
+
+    private void exec(Expr expr) {
+        switch (expr) {
+            case Expr.Binary b -> execBinary(b);
+            case Expr.Grouping(var e) -> exec(e);
+            case Expr.Unary u -> execUnary(u);
+            case Expr.Variable v -> throw Interpreter.undefined(v.name());
+            case Literal literal -> load(literal);
+        }
+    }
+
+    private void load(Literal literal) {
+        switch (literal) {
+            case Literal.Int(int n) -> setInt(n);
+            case Literal.Double(double d) -> setDouble(d);
+            case Literal.Bool(boolean b) -> setBool(b);
+            case Literal.String(var s) -> setString(s);
+            case Literal.Nil _ -> setNil();
+        }
+    }
+
+    private void execUnary(Expr.Unary expr) {
+        exec(expr.expr());
+        switch (expr.op()) {
+            case Negative -> {
+                if (tag == Tag.Int) setInt(-(int) bits);
+                else if (tag == Tag.Double) setDouble(-longBitsToDouble(bits));
+                else throw new LoxRuntimeError(UnaryOperator.asToken(expr.op()), "Operand must be a number.");
+            }
+            case Not -> setBool(!isTruthy());
+        }
+    }
+
+    private void execBinary(Expr.Binary expr) {
+        BinaryOperator op = expr.op();
+        exec(expr.lhs());
+
+        // same short-circuit rule as Interpreter: only a literal true/false stops evaluation
+        switch (op) {
+            case Or -> {
+                if (tag != Tag.Bool || bits == 0) exec(expr.rhs());
+                return;
+            }
+            case And -> {
+                if (tag != Tag.Bool || bits != 0) exec(expr.rhs());
+                return;
+            }
+            default -> {}
+        }
+
+        Tag lt = tag;
+        long lb = bits;
+        Object lr = ref;
+        exec(expr.rhs());
+
+        switch (op) {
+            case Eq -> setBool(isEqual(lt, lb, lr));
+            case NotEq -> setBool(!isEqual(lt, lb, lr));
+            case Add -> {
+                if (lt == Tag.String || tag == Tag.String)
+                    setString(LoxString.concat(stringOperand(lt, lb, lr), stringOperand(tag, bits, ref)));
+                else arithmetic(op, lt, lb);
+            }
+            default -> arithmetic(op, lt, lb);
+        }
+    }
+
+    private void arithmetic(BinaryOperator op, Tag lt, long lb) {
+        if (!isNumber(lt) || !isNumber(tag))
+            throw new LoxRuntimeError(asToken(op), "Operands must be numbers.");
+
+        if (op == Divide && (tag == Tag.Int ? bits == 0 : longBitsToDouble(bits) == 0))
+            throw new LoxRuntimeError(asToken(Divide), "Cannot divide by zero");
+
+        if (lt == Tag.Int && tag == Tag.Int) {
+            int a = (int) lb, b = (int) bits;
+            switch (op) {
+                case LessThan -> setBool(a < b);
+                case GreaterThan -> setBool(a > b);
+                case LessThanEq -> setBool(a <= b);
+                case GreaterThanEq -> setBool(a >= b);
+                case Add -> setInt(a + b);
+                case Subtract -> setInt(a - b);
+                case Multiply -> setInt(a * b);
+                case Divide -> setInt(a / b);
+                default -> throw new IllegalStateException("Not an arithmetic operator: " + op);
+            }
+            return;
+        }
+
+        double a = toDouble(lt, lb), b = toDouble(tag, bits);
+        switch (op) {
+            case LessThan -> setBool(a < b);
+            case GreaterThan -> setBool(a > b);
+            case LessThanEq -> setBool(a <= b);
+            case GreaterThanEq -> setBool(a >= b);
+            case Add -> setDouble(a + b);
+            case Subtract -> setDouble(a - b);
+            case Multiply -> setDouble(a * b);
+            case Divide -> setDouble(a / b);
+            default -> throw new IllegalStateException("Not an arithmetic operator: " + op);
+        }
+    }
+
+    // mirrors Objects.equals on the boxed values: 1 != 1.0, NaN == NaN
+    private boolean isEqual(Tag lt, long lb, Object lr) {
+        if (lt != tag) return false;
+        return switch (lt) {
+            case Nil -> true;
+            case Bool, Int -> lb == bits;
+            case Double -> doubleToLongBits(longBitsToDouble(lb)) == doubleToLongBits(longBitsToDouble(bits));
+            case String -> Interpreter.isEqual(lr, ref);
+        };
+    }
+
+    // null or false -> falsey
+    // everything else -> truthy
+    private boolean isTruthy() {
+        return switch (tag) {
+            case Nil -> false;
+            case Bool -> bits != 0;
+            default -> true;
+        };
+    }
+
+    private static boolean isNumber(Tag t) {
+        return t == Tag.Int || t == Tag.Double;
+    }
+
+    private static double toDouble(Tag t, long payload) {
+        return t == Tag.Int ? (int) payload : longBitsToDouble(payload);
+    }
+
+    // strings are passed on as they are, so LoxString can link them instead of copying
+    private static Object stringOperand(Tag t, long payload, Object r) {
+        return switch (t) {
+            case Nil -> "nil";
+            case Bool -> payload != 0 ? "true" : "false";
+            case Int -> Integer.toString((int) payload);
+            case Double -> Double.toString(longBitsToDouble(payload));
+            case String -> r;
+        };
+    }
+
+    private void setNil() {
+        tag = Tag.Nil;
+        bits = 0;
+        ref = null;
+    }
+
+    private void setBool(boolean b) {
+        tag = Tag.Bool;
+        bits = b ? 1 : 0;
+        ref = null;
+    }
+
+    private void setInt(int n) {
+        tag = Tag.Int;
+        bits = n;
+        ref = null;
+    }
+
+    private void setDouble(double d) {
+        tag = Tag.Double;
+        bits = doubleToRawLongBits(d);
+        ref = null;
+    }
+
+    // a String or a LoxString
+    private void setString(Object s) {
+        tag = Tag.String;
+        bits = 0;
+        ref = s;
+    }
+}
@@ -0,0 +1,140 @@
+package org.kogu.lox.ch07_eval;
+
+import org.kogu.lox.ch05_ast.Expr;
+import org.kogu.lox.ch05_ast.ExprPrinter;
+import org.kogu.lox.ch06_parser.ErrorReporter;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs expressions in tiers, paying for optimization only where it pays off.
+ * <ul>
+ *     <li>{@code Interpreted}: {@link Interpreter#eval} plus an invocation counter</li>
+ *     <li>{@code Specialized}: after {@code specializeAfter} calls, typed nodes from {@link Specializer}</li>
+ *     <li>{@code Folded}: after {@code foldAfter} calls, {@link ConstantFolder} then {@link Specializer}</li>
+ * </ul>
+ * Promotions are compiled on a single background thread and published with one compare-and-set
+ * against the stage they were compiled from, so a caller sees either the old or the new tier, never
+ * a mix, and tiers only ever move up. Each counter is one {@link AtomicLong}: bumping it returns the
+ * count to check against the next promotion, where a {@code LongAdder} would sum all its cells on
+ * every call.
+ */
+public final class TieredInterpreter implements AutoCloseable {
+    public enum Tier {Interpreted, Specialized, Folded}
+
+    public record TierInfo(String expr, Tier tier, long invocations) {}
+
+    private final int specializeAfter, foldAfter;
+    private final ExecutorService compiler;
+    private final List<Compiled> compiled = new CopyOnWriteArrayList<>();
+
+    public TieredInterpreter() {
+        this(1_000, 10_000);
+    }
+
+    public TieredInterpreter(int specializeAfter, int foldAfter) {
+        if (specializeAfter < 1 || foldAfter < specializeAfter)
+            throw new IllegalArgumentException(
+                "Expected 0 < specializeAfter <= foldAfter, got: " + specializeAfter + ", " + foldAfter);
+
+        this.specializeAfter = specializeAfter;
+        this.foldAfter = foldAfter;
+        this.compiler = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().daemon().name("lox-tier-compiler").factory());
+    }
+
+    public Compiled compile(Expr expr) {
+        Compiled c = new Compiled(expr);
+        compiled.add(c);
+        return c;
+    }
+
+    public List<TierInfo> metrics() {
+        List<TierInfo> result = new ArrayList<>(compiled.size());
+        for (Compiled c : compiled)
+            result.add(new TierInfo(ExprPrinter.asInfix(c.expr), c.tier(), c.invocations.get()));
+        return result;
+    }
+
+    public Map<Tier, Integer> countByTier() {
+        Map<Tier, Integer> result = new EnumMap<>(Tier.class);
+        for (Tier t : Tier.values()) result.put(t, 0);
+        for (Compiled c : compiled) result.merge(c.tier(), 1, Integer::sum);
+        return result;
+    }
+
+    // blocks until every promotion queued so far has been published
+    void awaitCompilations() throws InterruptedException, ExecutionException {
+        compiler.submit(() -> {}).get();
+    }
+
+    @Override
+    public void close() {
+        compiler.shutdownNow();
+    }
+
+    private record Stage(Tier tier, Specialized code, long promoteAt) {}
+
+    public final class Compiled {
+        private final Expr expr;
+        private final AtomicBoolean compiling = new AtomicBoolean();
+        private final AtomicReference<Stage> stage = new AtomicReference<>(new Stage(Tier.Interpreted, null, specializeAfter));
+        private final AtomicLong invocations = new AtomicLong();
+
+        private Compiled(Expr expr) {
+            this.expr = expr;
+        }
+
+        public Object eval() {
+            Stage s = stage.get();
+            if (invocations.incrementAndGet() >= s.promoteAt) promote(s);
+            return s.code == null ? Interpreter.eval(expr) : LoxString.flatten(s.code.eval());
+        }
+
+        public Tier tier() {
+            return stage.get().tier;
+        }
+
+        public Expr expr() {
+            return expr;
+        }
+
+        private void promote(Stage from) {
+            if (!compiling.compareAndSet(false, true)) return;
+            try {
+                compiler.execute(() -> {
+                    try {
+                        // from is stale when a promotion it raced with already went out
+                        if (stage.get() == from) stage.compareAndSet(from, next(from));
+                    } finally {
+                        compiling.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // closed: keep running in the current tier
+                stage.compareAndSet(from, new Stage(from.tier, from.code, Long.MAX_VALUE));
+                compiling.set(false);
+            }
+        }
+
+        private Stage next(Stage from) {
+            ErrorReporter silent = ErrorReporter.fakeReporter();
+            return switch (from.tier) {
+                case Interpreted -> new Stage(Tier.Specialized, Specializer.specialize(expr, silent), foldAfter);
+                case Specialized, Folded ->
+                    new Stage(Tier.Folded, Specializer.specialize(ConstantFolder.fold(expr), silent), Long.MAX_VALUE);
+            };
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.kogu.lox.ch07_eval;
+
+import org.kogu.lox.ch05_ast.Expr;
+import org.kogu.lox.ch05_ast.ExprPrinter;
+import org.kogu.lox.ch05_ast.Literal;
+import org.kogu.lox.ch06_parser.Error;
+import org.kogu.lox.ch06_parser.ErrorReporter;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import static org.kogu.lox.ch07_eval.StaticType.*;
+
+/**
+ * Infers a {@link StaticType} for every node of an expression before it runs.
+ * <p>
+ * Operations that can never succeed (eg: {@code true - 1}) are reported to the {@link ErrorReporter}
+ * as {@link Error.TypeError}s and typed {@code Dynamic}, so the error surfaces again at runtime
+ * instead of cascading through the rest of the tree.
+ * <p>
+ * Types are keyed by node identity: records compare structurally and shared literals are fine,
+ * as a literal always has the same type.
+ */
+public final class TypeChecker {
+    private final Map<Expr, StaticType> types = new IdentityHashMap<>();
+    private final ErrorReporter reporter;
+    private boolean hadError = false;
+
+    private TypeChecker(ErrorReporter reporter) {
+        this.reporter = reporter;
+    }
+
+    public static TypeChecker check(Expr expr, ErrorReporter reporter) {
+        TypeChecker checker = new TypeChecker(reporter);
+        checker.infer(expr);
+        return checker;
+    }
+
+    public StaticType typeOf(Expr expr) {
+        StaticType t = types.get(expr);
+        if (t == null)
+            throw new IllegalArgumentException("Not part of the checked expression: " + ExprPrinter.asInfix(expr));
+        return t;
+    }
+
+    public boolean hadError() {
+        return hadError;
+    }
+
+    private StaticType infer(Expr expr) {
+        StaticType t = switch (expr) {
+            case Expr.Binary b -> inferBinary(b);
+            case Expr.Grouping(var e) -> infer(e);
+            case Expr.Unary u -> inferUnary(u);
+            case Expr.Variable _ -> Dynamic;
+            case Literal literal -> StaticType.of(literal);
+        };
+        types.put(expr, t);
+        return t;
+    }
+
+    private StaticType inferUnary(Expr.Unary expr) {
+        StaticType t = infer(expr.expr());
+        return switch (expr.op()) {
+            case Negative -> t.maybeNumeric() ? t : error(expr, "Operand must be a number.");
+            case Not -> Bool;
+        };
+    }
+
+    private StaticType inferBinary(Expr.Binary expr) {
+        StaticType a = infer(expr.lhs());
+        StaticType b = infer(expr.rhs());
+        return switch (expr.op()) {
+            case Eq, NotEq -> Bool;
+            case LessThan, GreaterThan, LessThanEq, GreaterThanEq ->
+                a.maybeNumeric() && b.maybeNumeric() ? Bool : error(expr, "Operands must be numbers.");
+            case Add -> {
+                if (a == String || b == String) yield String;
+                // a dynamic operand could still turn out to be a string
+                if (a == Dynamic || b == Dynamic) yield Dynamic;
+                yield arithmetic(expr, a, b);
+            }
+            case Subtract, Multiply, Divide -> arithmetic(expr, a, b);
+            // `Or` only short-circuits on true, `And` only on false - anything else yields rhs
+            case Or, And -> a == Bool || a == Dynamic ? join(Bool, b) : b;
+        };
+    }
+
+    private StaticType arithmetic(Expr.Binary expr, StaticType a, StaticType b) {
+        if (a.isNumeric() && b.isNumeric()) return a == Int && b == Int ? Int : Double;
+        if (a.maybeNumeric() && b.maybeNumeric()) return Dynamic;
+        return error(expr, "Operands must be numbers.");
+    }
+
+    private StaticType error(Expr expr, String message) {
+        hadError = true;
+        reporter.handle(Error.typeError(message + " [" + ExprPrinter.asInfix(expr) + "]"));
+        return Dynamic;
+    }
+}
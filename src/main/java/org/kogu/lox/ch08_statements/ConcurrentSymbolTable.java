@@ -0,0 +1,156 @@
+package org.kogu.lox.ch08_statements;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * {@link SymbolTable} that many threads can read and write at once.
+ * <p>
+ * Reads never lock: the table is one volatile snapshot of arrays, entries are only ever added, and
+ * each holds its value in a volatile field. Defines and assignments of a known symbol write that
+ * field, with a CAS where an assignment must not resurrect an undefined entry. Only adding a symbol
+ * takes a lock; the new entry is published with release stores into its slot and into the bucket that
+ * finds it, and growing the table publishes a fresh snapshot that shares every entry with the old one.
+ * Slots read other than through a bucket, by a site's hint or by {@link #forEach}, are read with acquire.
+ */
+public final class ConcurrentSymbolTable implements Globals {
+    private static final int FREE = -1;
+    private static final VarHandle BUCKET = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(Entry[].class);
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(Entry.class, "value", Object.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static final class Entry {
+        final int symbol;
+        volatile Object value = UNDEFINED;
+        // stored after value, read before it: a version never vouches for an older value
+        volatile long version;
+
+        Entry(int symbol) {
+            this.symbol = symbol;
+        }
+    }
+
+    // buckets hold indexes into entries, which only grows
+    private record Table(int[] buckets, Entry[] entries) {}
+
+    private volatile Table table = new Table(newBuckets(16), new Entry[8]);
+    private final AtomicLong lastVersion = new AtomicLong();
+    private final Object addLock = new Object();
+    // guarded by addLock
+    private int size;
+
+    public Object get(SymbolTable.Site site) {
+        Entry entry = find(site);
+        return entry == null ? UNDEFINED : entry.value;
+    }
+
+    public void define(SymbolTable.Site site, Object value) {
+        Entry entry = find(site);
+        if (entry == null) entry = add(site.symbol);
+        entry.value = value;
+        entry.version = lastVersion.incrementAndGet();
+    }
+
+    public boolean assign(SymbolTable.Site site, Object value) {
+        Entry entry = find(site);
+        if (entry == null) return false;
+        for (; ; ) {
+            Object current = entry.value;
+            if (current == UNDEFINED) return false;
+            if (VALUE.compareAndSet(entry, current, value)) break;
+        }
+        entry.version = lastVersion.incrementAndGet();
+        return true;
+    }
+
+    public long version(SymbolTable.Site site) {
+        Entry entry = find(site);
+        return entry == null ? 0 : entry.version;
+    }
+
+    // weakly consistent: sees each entry once, with whatever value it has by then
+    public void forEach(ObjIntConsumer<Object> action) {
+        Entry[] entries = table.entries();
+        for (int i = 0; i < entries.length; i++) {
+            Entry entry = (Entry) SLOT.getAcquire(entries, i);
+            if (entry == null) break;
+            Object value = entry.value;
+            if (value != UNDEFINED) action.accept(value, entry.symbol);
+        }
+    }
+
+    private Entry find(SymbolTable.Site site) {
+        Entry[] entries = table.entries();
+        int hint = site.hint;
+        if (hint >= 0 && hint < entries.length) {
+            // no bucket read orders this one after the entry was filled in
+            Entry entry = (Entry) SLOT.getAcquire(entries, hint);
+            if (entry != null && entry.symbol == site.symbol) return entry;
+        }
+
+        Table t = table;
+        int index = find(t, site.symbol);
+        if (index == FREE) return null;
+        site.hint = index;
+        return t.entries()[index];
+    }
+
+    private static int find(Table t, int symbol) {
+        int[] buckets = t.buckets();
+        int mask = buckets.length - 1;
+        for (int b = SymbolTable.hash(symbol) & mask; ; b = (b + 1) & mask) {
+            int index = (int) BUCKET.getAcquire(buckets, b);
+            if (index == FREE) return FREE;
+            if (t.entries()[index].symbol == symbol) return index;
+        }
+    }
+
+    private Entry add(int symbol) {
+        synchronized (addLock) {
+            Table t = table;
+            int index = find(t, symbol);
+            if (index != FREE) return t.entries()[index];
+
+            Entry entry = new Entry(symbol);
+            index = size++;
+            Entry[] entries = t.entries();
+            // at most half the buckets are used, so entries and buckets fill up together
+            if (index < entries.length) {
+                SLOT.setRelease(entries, index, entry);
+                insert(t.buckets(), entries, index, true);
+            } else {
+                entries = Arrays.copyOf(entries, index * 2);
+                entries[index] = entry;
+                int[] buckets = newBuckets(t.buckets().length * 2);
+                for (int i = 0; i < size; i++) insert(buckets, entries, i, false);
+                table = new Table(buckets, entries);
+            }
+            return entry;
+        }
+    }
+
+    private static void insert(int[] buckets, Entry[] entries, int index, boolean release) {
+        int mask = buckets.length - 1;
+        int b = SymbolTable.hash(entries[index].symbol) & mask;
+        while (buckets[b] != FREE) b = (b + 1) & mask;
+        if (release) BUCKET.setRelease(buckets, b, index);
+        else buckets[b] = index;
+    }
+
+    private static int[] newBuckets(int capacity) {
+        int[] b = new int[capacity];
+        Arrays.fill(b, FREE);
+        return b;
+    }
+}
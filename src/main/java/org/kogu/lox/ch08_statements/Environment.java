@@ -3,22 +3,137 @@ package org.kogu.lox.ch08_statements;
 import org.kogu.lox.ch04_scanning.Token;
 import org.kogu.lox.ch07_eval.LoxRuntimeError;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Global variables: a name defined as {@code nil} is still defined.
+ * <p>
+ * Lookups by {@link SymbolTable.Site} skip hashing the name once the site has found its variable.
+ * A plain {@code Environment} belongs to one thread; {@link #concurrent()} can be shared, and each
+ * thread can give its own definitions an {@link #overlay()} over it. A {@link #persistent()} one
+ * can {@link #fork()} and {@link #snapshot()} itself in constant time, and one
+ * {@link #fromImage(Image) from an image} starts without decoding bindings it never reads.
+ */
 public final class Environment {
-    private final Map<String, Object> values;
+    private final Globals globals;
+    // one site per name used by name, so its hint carries over between lookups; a racy hint is only a miss
+    private final Map<String, SymbolTable.Site> sites = new ConcurrentHashMap<>();
 
-    public Environment() {values = new HashMap<>();}
+    public Environment() {
+        this(new SymbolTable());
+    }
+
+    private Environment(Globals globals) {
+        this.globals = globals;
+    }
+
+    // lock-free reads, for many threads executing against the same globals
+    public static Environment concurrent() {
+        return new Environment(new ConcurrentSymbolTable());
+    }
+
+    public static Environment persistent() {
+        return new Environment(new PersistentSymbolTable());
+    }
+
+    // an independent copy, sharing all it can with this one
+    public Environment fork() {
+        return new Environment(persistentGlobals().fork());
+    }
+
+    // a read-only copy of the globals as they are now
+    public Environment snapshot() {
+        return new Environment(persistentGlobals().snapshot());
+    }
+
+    // bindings come from the image as they are used, definitions stay in memory
+    public static Environment fromImage(Image image) {
+        return new Environment(new Globals.FromImage(new SymbolTable(), image));
+    }
+
+    // for one thread: its definitions shadow, and stay out of, this environment
+    public Environment overlay() {
+        return new Environment(new Globals.Overlay(new SymbolTable(), globals));
+    }
 
     void define(String name, Object value) {
-        values.put(name, value);
+        globals.define(site(name), value);
+    }
+
+    void define(SymbolTable.Site site, Object value) {
+        globals.define(site, value);
+    }
+
+    // also the MemoizingInterpreter.Variables of this environment
+    public Object get(Token name) {
+        SymbolTable.Site site = lookup(name.lexeme());
+        if (site == null) throw undefined(name);
+        return get(site, name);
     }
 
-    Object get(Token name) {
-        Object o = values.get(name.lexeme());
-        if (o != null) return o;
+    Object get(SymbolTable.Site site, Token name) {
+        Object value = globals.get(site);
+        if (value == Globals.UNDEFINED) throw undefined(name);
+        return value;
+    }
+
+    void assign(Token name, Object value) {
+        SymbolTable.Site site = lookup(name.lexeme());
+        if (site == null) throw undefined(name);
+        assign(site, name, value);
+    }
+
+    void assign(SymbolTable.Site site, Token name, Object value) {
+        if (!globals.assign(site, value)) throw undefined(name);
+    }
+
+    boolean isDefined(String name) {
+        SymbolTable.Site site = lookup(name);
+        return site != null && globals.get(site) != Globals.UNDEFINED;
+    }
+
+    // null for nil and for an undefined name alike
+    Object valueOf(String name) {
+        SymbolTable.Site site = lookup(name);
+        if (site == null) return null;
+        Object value = globals.get(site);
+        return value == Globals.UNDEFINED ? null : value;
+    }
+
+    // 0 until the name is first defined
+    long version(String name) {
+        SymbolTable.Site site = lookup(name);
+        return site == null ? 0 : globals.version(site);
+    }
+
+    // every defined name with its value
+    Map<String, Object> bindings() {
+        Map<String, Object> bindings = new LinkedHashMap<>();
+        globals.forEach((value, symbol) -> bindings.put(Symbols.name(symbol), value));
+        return bindings;
+    }
+
+    private PersistentSymbolTable persistentGlobals() {
+        if (globals instanceof PersistentSymbolTable p) return p;
+        throw new UnsupportedOperationException("Only a persistent environment can be forked");
+    }
+
+    private SymbolTable.Site site(String name) {
+        SymbolTable.Site site = sites.get(name);
+        return site != null ? site : sites.computeIfAbsent(name, n -> new SymbolTable.Site(Symbols.intern(n)));
+    }
+
+    // null for a name no environment ever defined: reads must not intern, or every miss stays in Symbols
+    private SymbolTable.Site lookup(String name) {
+        SymbolTable.Site site = sites.get(name);
+        if (site != null) return site;
+        int symbol = Symbols.lookup(name);
+        return symbol < 0 ? null : sites.computeIfAbsent(name, n -> new SymbolTable.Site(symbol));
+    }
 
-        throw new LoxRuntimeError(name, "Undefined variable '" + name.lexeme() + "'.");
+    private static LoxRuntimeError undefined(Token name) {
+        return new LoxRuntimeError(name, "Undefined variable '" + name.lexeme() + "'.");
     }
 }
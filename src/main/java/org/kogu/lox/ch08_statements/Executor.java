@@ -0,0 +1,91 @@
+package org.kogu.lox.ch08_statements;
+
+import org.kogu.lox.ch05_ast.Expr;
+import org.kogu.lox.ch05_ast.Literal;
+import org.kogu.lox.ch06_parser.ErrorReporter;
+import org.kogu.lox.ch07_eval.Interpreter;
+import org.kogu.lox.ch08_statements.Resolver.Address;
+
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Runs statements: globals through the {@link SymbolTable.Site} and locals by the {@link Address}
+ * the {@link Resolver} gave them, in one array-backed {@link Frame} per block. Globals the resolver
+ * gave no site are looked up by name.
+ */
+public final class Executor {
+    private final Environment globals;
+    private final PrintStream out;
+    private Resolver.Resolution resolution;
+
+    public Executor(Environment globals, PrintStream out) {
+        this.globals = globals;
+        this.out = out;
+    }
+
+    // false if the program did not resolve, the errors went to the reporter
+    public boolean execute(List<Stmt> program, ErrorReporter reporter) {
+        Resolver.Resolution r = Resolver.resolve(program, reporter);
+        if (r == null) return false;
+
+        resolution = r;
+        for (Stmt stmt : program) execute(stmt, null);
+        return true;
+    }
+
+    // frame is null at the top level, where every variable is global
+    private void execute(Stmt stmt, Frame frame) {
+        switch (stmt) {
+            case Stmt.Expression(var e) -> eval(e, frame);
+            case Stmt.Print(var e) -> out.println(stringify(eval(e, frame)));
+            case Stmt.Var v -> {
+                Object value = v.initializer() == null ? null : eval(v.initializer(), frame);
+                Object binding = resolution.bindingOf(v);
+                if (binding instanceof Address address) frame.set(0, address.slot(), value);
+                else globals.define((SymbolTable.Site) binding, value);
+            }
+            case Stmt.Assign a -> {
+                Object value = eval(a.value(), frame);
+                Object binding = resolution.bindingOf(a);
+                if (binding instanceof Address address) frame.set(address.depth(), address.slot(), value);
+                else if (binding == null) globals.assign(a.name(), value);
+                else globals.assign((SymbolTable.Site) binding, a.name(), value);
+            }
+            case Stmt.Block b -> {
+                Frame inner = new Frame(resolution.frameSize(b), frame);
+                for (Stmt s : b.statements()) execute(s, inner);
+            }
+        }
+    }
+
+    private Object eval(Expr expr, Frame frame) {
+        return switch (expr) {
+            case Expr.Binary b -> {
+                Object a = eval(b.lhs(), frame);
+                yield switch (b.op()) {
+                    case Or -> Objects.equals(a, Boolean.TRUE) ? Boolean.TRUE : eval(b.rhs(), frame);
+                    case And -> Objects.equals(a, Boolean.FALSE) ? Boolean.FALSE : eval(b.rhs(), frame);
+                    default -> Interpreter.apply(b.op(), a, eval(b.rhs(), frame));
+                };
+            }
+            case Expr.Grouping(var e) -> eval(e, frame);
+            case Expr.Unary u -> Interpreter.apply(u.op(), eval(u.expr(), frame));
+            case Expr.Variable v -> {
+                Object binding = resolution.bindingOf(v);
+                if (binding instanceof Address address) yield frame.get(address.depth(), address.slot());
+                // a global not defined when the program was resolved
+                if (binding == null) yield globals.get(v.name());
+                yield globals.get((SymbolTable.Site) binding, v.name());
+            }
+            case Literal literal -> literal.value();
+        };
+    }
+
+    private static String stringify(Object value) {
+        if (value == null) return "nil";
+        String s = value.toString();
+        return value instanceof Double && s.endsWith(".0") ? s.substring(0, s.length() - 2) : s;
+    }
+}
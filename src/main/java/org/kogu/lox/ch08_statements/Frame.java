@@ -0,0 +1,28 @@
+package org.kogu.lox.ch08_statements;
+
+/**
+ * Locals of one block, read and written by the slot {@link Resolver} assigned them.
+ */
+final class Frame {
+    private final Object[] slots;
+    private final Frame enclosing;
+
+    Frame(int size, Frame enclosing) {
+        this.slots = new Object[size];
+        this.enclosing = enclosing;
+    }
+
+    Object get(int depth, int slot) {
+        return ancestor(depth).slots[slot];
+    }
+
+    void set(int depth, int slot, Object value) {
+        ancestor(depth).slots[slot] = value;
+    }
+
+    private Frame ancestor(int depth) {
+        Frame f = this;
+        for (int i = 0; i < depth; i++) f = f.enclosing;
+        return f;
+    }
+}
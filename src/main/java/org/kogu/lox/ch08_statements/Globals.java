@@ -0,0 +1,103 @@
+package org.kogu.lox.ch08_statements;
+
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Where an {@link Environment} keeps its variables, looked up through {@link SymbolTable.Site}s.
+ */
+sealed interface Globals permits SymbolTable, ConcurrentSymbolTable, PersistentSymbolTable, Globals.Overlay, Globals.FromImage {
+    // value of a symbol with no definition, as opposed to null for nil
+    Object UNDEFINED = new Object();
+
+    Object get(SymbolTable.Site site);
+
+    void define(SymbolTable.Site site, Object value);
+
+    // false if the symbol is not defined
+    boolean assign(SymbolTable.Site site, Object value);
+
+    // 0 until the symbol is first defined, then different after each define
+    long version(SymbolTable.Site site);
+
+    // every defined value with its symbol, a symbol may come up more than once: the last one counts
+    void forEach(ObjIntConsumer<Object> action);
+
+    /**
+     * Request-local definitions over shared globals: reads and assignments fall through to
+     * {@code shared} for anything {@code local} does not define, definitions stay local.
+     * Confined to one thread, like its {@code local} table.
+     */
+    record Overlay(SymbolTable local, Globals shared) implements Globals {
+        public Object get(SymbolTable.Site site) {
+            // probed without the site's hint, which is left to the shared table
+            int entry = local.find(site.symbol);
+            return local.isDefined(entry) ? local.value(entry) : shared.get(site);
+        }
+
+        public void define(SymbolTable.Site site, Object value) {
+            local.define(local.reserve(site.symbol), value);
+        }
+
+        public boolean assign(SymbolTable.Site site, Object value) {
+            int entry = local.find(site.symbol);
+            if (!local.isDefined(entry)) return shared.assign(site, value);
+            local.define(entry, value);
+            return true;
+        }
+
+        public void forEach(ObjIntConsumer<Object> action) {
+            shared.forEach(action);
+            local.forEach(action);
+        }
+
+        // local versions are negated, so they can't be mistaken for a shared one
+        public long version(SymbolTable.Site site) {
+            int entry = local.find(site.symbol);
+            return local.isDefined(entry) ? -local.version(entry) : shared.version(site);
+        }
+    }
+
+    /**
+     * Bindings of an {@link Image}, decoded into {@code local} the first time each is used; later
+     * definitions and assignments also go to {@code local}, the image is never written.
+     */
+    record FromImage(SymbolTable local, Image image) implements Globals {
+        public Object get(SymbolTable.Site site) {
+            int entry = load(site);
+            return local.isDefined(entry) ? local.value(entry) : UNDEFINED;
+        }
+
+        public void define(SymbolTable.Site site, Object value) {
+            local.define(site, value);
+        }
+
+        public boolean assign(SymbolTable.Site site, Object value) {
+            int entry = load(site);
+            if (!local.isDefined(entry)) return false;
+            local.define(entry, value);
+            return true;
+        }
+
+        public long version(SymbolTable.Site site) {
+            return local.version(load(site));
+        }
+
+        // every binding of the image, decoding it, then the local ones on top
+        public void forEach(ObjIntConsumer<Object> action) {
+            image.forEachBinding((name, value) -> action.accept(value, Symbols.intern(name)));
+            local.forEach(action);
+        }
+
+        // the local entry for a site, after copying it from the image if it has not been yet
+        private int load(SymbolTable.Site site) {
+            int entry = local.find(site);
+            if (entry >= 0) return entry;
+
+            Object value = image.binding(Symbols.name(site.symbol));
+            if (value == UNDEFINED) return -1;
+            entry = local.reserve(site.symbol);
+            local.define(entry, value);
+            return entry;
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package org.kogu.lox.ch08_statements;
+
+import org.kogu.lox.ch04_scanning.Token;
+import org.kogu.lox.ch04_scanning.TokenType;
+import org.kogu.lox.ch05_ast.BinaryOperator;
+import org.kogu.lox.ch05_ast.Expr;
+import org.kogu.lox.ch05_ast.Literal;
+import org.kogu.lox.ch05_ast.UnaryOperator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Global bindings and compiled expressions, saved to a file that is memory-mapped and read lazily.
+ * <p>
+ * Opening an image reads its header and nothing else. Bindings and expressions are found through
+ * open-addressing tables stored in the file, keyed by {@link String#hashCode()}, and decoded when
+ * first asked for, so the cost of a start is that of the names it uses. An
+ * {@link Environment#fromImage(Image) Environment} over an image keeps what it decoded, and keeps
+ * its own definitions, without touching the file.
+ * <p>
+ * Layout, big-endian: magic, version, the slot counts of both tables, the binding table, the
+ * expression table, then the records they point at. A slot is a hash and a record offset, 0 when
+ * free; a record is a name followed by an encoded value or expression.
+ */
+public final class Image {
+    private static final int MAGIC = 0x4C4F5849; // "LOXI"
+    private static final int VERSION = 1;
+    private static final int HEADER = 16;
+    private static final int SLOT = 8;
+
+    // value tags, also literals inside expressions
+    private static final byte NIL = 0, FALSE = 1, TRUE = 2, INT = 3, DOUBLE = 4, STRING = 5;
+    private static final byte BINARY = 6, UNARY = 7, GROUPING = 8, VARIABLE = 9;
+
+    private final ByteBuffer buffer;
+    private final int bindingSlots, expressionSlots;
+    private final Map<String, Expr> expressions = new ConcurrentHashMap<>();
+
+    private Image(ByteBuffer buffer, int bindingSlots, int expressionSlots) {
+        this.buffer = buffer;
+        this.bindingSlots = bindingSlots;
+        this.expressionSlots = expressionSlots;
+    }
+
+    // the values must be nil, booleans, numbers or strings; file may be the one an open image maps
+    public static void write(Path file, Environment env, Map<String, Expr> expressions) throws IOException {
+        Map<String, Object> bindings = env.bindings();
+        int bindingSlots = slotsFor(bindings.size()), expressionSlots = slotsFor(expressions.size());
+        int recordsStart = HEADER + (bindingSlots + expressionSlots) * SLOT;
+
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(records);
+        int[] bindingTable = new int[bindingSlots * 2], expressionTable = new int[expressionSlots * 2];
+        for (var e : bindings.entrySet()) {
+            put(bindingTable, e.getKey(), recordsStart + out.size());
+            writeName(out, e.getKey());
+            writeValue(out, e.getValue());
+        }
+        for (var e : expressions.entrySet()) {
+            put(expressionTable, e.getKey(), recordsStart + out.size());
+            writeName(out, e.getKey());
+            writeExpr(out, e.getValue());
+        }
+
+        ByteBuffer image = ByteBuffer.allocate(recordsStart + out.size());
+        image.putInt(MAGIC).putInt(VERSION).putInt(bindingSlots).putInt(expressionSlots);
+        for (int i : bindingTable) image.putInt(i);
+        for (int i : expressionTable) image.putInt(i);
+        image.put(records.toByteArray());
+
+        // written beside the target and renamed over it: an image mapped from the old file keeps it,
+        // and a crash leaves the old image or the new one, never half of one
+        Path target = file.toAbsolutePath();
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                for (image.flip(); image.hasRemaining(); ) channel.write(image);
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    public static Image open(Path file) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.limit() < HEADER || buffer.getInt(0) != MAGIC) throw new IOException("Not a jlox image: " + file);
+        if (buffer.getInt(4) != VERSION) throw new IOException("Unsupported image version " + buffer.getInt(4) + ": " + file);
+
+        int bindingSlots = buffer.getInt(8), expressionSlots = buffer.getInt(12);
+        if (Integer.bitCount(bindingSlots) != 1 || Integer.bitCount(expressionSlots) != 1
+            || HEADER + (long) (bindingSlots + expressionSlots) * SLOT > buffer.limit())
+            throw new IOException("Corrupt jlox image: " + file);
+        return new Image(buffer, bindingSlots, expressionSlots);
+    }
+
+    public Optional<Expr> expression(String key) {
+        Expr cached = expressions.get(key);
+        if (cached != null) return Optional.of(cached);
+
+        int record = find(HEADER + bindingSlots * SLOT, expressionSlots, key);
+        if (record == 0) return Optional.empty();
+        Expr expr = new Reader(buffer, skipName(record)).expr();
+        expressions.putIfAbsent(key, expr);
+        return Optional.of(expr);
+    }
+
+    // Globals.UNDEFINED if the image has no such binding; decoded on every call
+    Object binding(String name) {
+        int record = find(HEADER, bindingSlots, name);
+        return record == 0 ? Globals.UNDEFINED : new Reader(buffer, skipName(record)).value();
+    }
+
+    // decodes every binding, for writing an image over this one
+    void forEachBinding(BiConsumer<String, Object> action) {
+        for (int i = 0; i < bindingSlots; i++) {
+            int record = buffer.getInt(HEADER + i * SLOT + 4);
+            if (record == 0) continue;
+            Reader reader = new Reader(buffer, record + 2);
+            action.accept(reader.string(Short.toUnsignedInt(buffer.getShort(record))), reader.value());
+        }
+    }
+
+    // offset of the record for name, 0 if there is none
+    private int find(int table, int slots, String name) {
+        byte[] key = name.getBytes(StandardCharsets.UTF_8);
+        int hash = name.hashCode(), mask = slots - 1;
+        for (int i = spread(hash) & mask; ; i = (i + 1) & mask) {
+            int slot = table + i * SLOT;
+            int record = buffer.getInt(slot + 4);
+            if (record == 0) return 0;
+            if (buffer.getInt(slot) == hash && nameEquals(record, key)) return record;
+        }
+    }
+
+    private boolean nameEquals(int record, byte[] key) {
+        if (Short.toUnsignedInt(buffer.getShort(record)) != key.length) return false;
+        for (int i = 0; i < key.length; i++)
+            if (buffer.get(record + 2 + i) != key[i]) return false;
+        return true;
+    }
+
+    private int skipName(int record) {
+        return record + 2 + Short.toUnsignedInt(buffer.getShort(record));
+    }
+
+    // reads by absolute position only, so any number of them can share the buffer
+    private static final class Reader {
+        private final ByteBuffer buffer;
+        private int at;
+
+        Reader(ByteBuffer buffer, int at) {
+            this.buffer = buffer;
+            this.at = at;
+        }
+
+        Object value() {
+            byte tag = buffer.get(at++);
+            return switch (tag) {
+                case NIL -> null;
+                case FALSE -> Boolean.FALSE;
+                case TRUE -> Boolean.TRUE;
+                case INT -> readInt();
+                case DOUBLE -> {
+                    double d = buffer.getDouble(at);
+                    at += 8;
+                    yield d;
+                }
+                case STRING -> string(readInt());
+                default -> throw new IllegalStateException("Corrupt image: value tag " + tag + " at " + (at - 1));
+            };
+        }
+
+        Expr expr() {
+            byte tag = buffer.get(at);
+            return switch (tag) {
+                case BINARY -> {
+                    BinaryOperator op = BinaryOperator.values()[buffer.get(at + 1)];
+                    at += 2;
+                    Expr lhs = expr();
+                    yield Expr.binary(lhs, op, expr());
+                }
+                case UNARY -> {
+                    UnaryOperator op = UnaryOperator.values()[buffer.get(at + 1)];
+                    at += 2;
+                    yield Expr.unary(op, expr());
+                }
+                case GROUPING -> {
+                    at++;
+                    yield Expr.grouping(expr());
+                }
+                case VARIABLE -> {
+                    at++;
+                    int line = readInt();
+                    yield Expr.variable(Token.of(TokenType.IDENTIFIER, string(readInt()), line));
+                }
+                default -> switch (value()) {
+                    case null -> Expr.nil();
+                    case Boolean b -> Expr.literal(b);
+                    case Integer n -> Expr.literal(n);
+                    case Double d -> Expr.literal(d);
+                    case String s -> Expr.literal(s);
+                    default -> throw new IllegalStateException("Corrupt image: literal at " + at);
+                };
+            };
+        }
+
+        private int readInt() {
+            int n = buffer.getInt(at);
+            at += 4;
+            return n;
+        }
+
+        private String string(int length) {
+            byte[] bytes = new byte[length];
+            buffer.get(at, bytes);
+            at += length;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void writeName(DataOutputStream out, String name) throws IOException {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) throw new IllegalArgumentException("Name too long for an image: " + name.substring(0, 32) + "...");
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        switch (value) {
+            case null -> out.writeByte(NIL);
+            case Boolean b -> out.writeByte(b ? TRUE : FALSE);
+            case Integer n -> {
+                out.writeByte(INT);
+                out.writeInt(n);
+            }
+            case Double d -> {
+                out.writeByte(DOUBLE);
+                out.writeDouble(d);
+            }
+            case CharSequence s -> {
+                byte[] bytes = s.toString().getBytes(StandardCharsets.UTF_8);
+                out.writeByte(STRING);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            default -> throw new IllegalArgumentException("Can't write a " + value.getClass().getSimpleName() + " to an image");
+        }
+    }
+
+    private static void writeExpr(DataOutputStream out, Expr expr) throws IOException {
+        switch (expr) {
+            case Expr.Binary b -> {
+                out.writeByte(BINARY);
+                out.writeByte(b.op().ordinal());
+                writeExpr(out, b.lhs());
+                writeExpr(out, b.rhs());
+            }
+            case Expr.Unary u -> {
+                out.writeByte(UNARY);
+                out.writeByte(u.op().ordinal());
+                writeExpr(out, u.expr());
+            }
+            case Expr.Grouping(var e) -> {
+                out.writeByte(GROUPING);
+                writeExpr(out, e);
+            }
+            case Expr.Variable v -> {
+                byte[] name = v.name().lexeme().getBytes(StandardCharsets.UTF_8);
+                out.writeByte(VARIABLE);
+                out.writeInt(v.name().line());
+                out.writeInt(name.length);
+                out.write(name);
+            }
+            case Literal literal -> writeValue(out, literal.value());
+        }
+    }
+
+    private static void put(int[] table, String name, int record) {
+        int hash = name.hashCode(), mask = table.length / 2 - 1;
+        int i = spread(hash) & mask;
+        while (table[i * 2 + 1] != 0) i = (i + 1) & mask;
+        table[i * 2] = hash;
+        table[i * 2 + 1] = record;
+    }
+
+    // at most half full, never empty
+    private static int slotsFor(int entries) {
+        return Math.max(2, Integer.highestOneBit(Math.max(1, entries) * 4 - 1));
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
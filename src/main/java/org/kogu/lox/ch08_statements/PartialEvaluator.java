@@ -0,0 +1,110 @@
+package org.kogu.lox.ch08_statements;
+
+import org.kogu.lox.ch05_ast.Expr;
+import org.kogu.lox.ch05_ast.Literal;
+import org.kogu.lox.ch07_eval.ConstantFolder;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Specializes expressions to the bindings of an {@link Environment} that are declared stable.
+ * <p>
+ * Stable variables are replaced by their current value and the result is run through
+ * {@link ConstantFolder}, leaving a residual expression over the dynamic variables only. Each
+ * {@link Residual} remembers the version of every stable binding it read, and stops being valid
+ * as soon as one of them is defined again.
+ */
+public final class PartialEvaluator {
+    private final Environment env;
+    private final Set<String> stable;
+
+    public PartialEvaluator(Environment env, Set<String> stable) {
+        this.env = env;
+        this.stable = Set.copyOf(stable);
+    }
+
+    public Residual residualize(Expr expr) {
+        Map<String, Long> assumed = new HashMap<>();
+        Expr residual = ConstantFolder.fold(substitute(expr, assumed));
+        // after folding: `enabled or x` with enabled true has no x left in it
+        Set<String> dynamic = new LinkedHashSet<>();
+        variables(residual, dynamic);
+        return new Residual(expr, residual, Set.copyOf(dynamic), Map.copyOf(assumed));
+    }
+
+    public final class Residual {
+        private final Expr source;
+        private final Expr expr;
+        private final Set<String> dynamicVariables;
+        private final Map<String, Long> assumed;
+
+        private Residual(Expr source, Expr expr, Set<String> dynamicVariables, Map<String, Long> assumed) {
+            this.source = source;
+            this.expr = expr;
+            this.dynamicVariables = dynamicVariables;
+            this.assumed = assumed;
+        }
+
+        public Expr expr() {
+            return expr;
+        }
+
+        // variables of the source left in the residual, a fully folded residual has none
+        public Set<String> dynamicVariables() {
+            return dynamicVariables;
+        }
+
+        public boolean isValid() {
+            for (var e : assumed.entrySet())
+                if (env.version(e.getKey()) != e.getValue()) return false;
+            return true;
+        }
+
+        // this residual, or a new one if a stable binding changed since
+        public Residual refresh() {
+            return isValid() ? this : residualize(source);
+        }
+    }
+
+    private Expr substitute(Expr expr, Map<String, Long> assumed) {
+        return switch (expr) {
+            case Expr.Binary b -> Expr.binary(substitute(b.lhs(), assumed), b.op(), substitute(b.rhs(), assumed));
+            case Expr.Grouping(var e) -> Expr.grouping(substitute(e, assumed));
+            case Expr.Unary u -> Expr.unary(u.op(), substitute(u.expr(), assumed));
+            case Expr.Variable v -> {
+                String name = v.name().lexeme();
+                Literal value = stable.contains(name) ? stableValue(name, assumed) : null;
+                yield value != null ? value : v;
+            }
+            case Literal literal -> literal;
+        };
+    }
+
+    private static void variables(Expr expr, Set<String> names) {
+        switch (expr) {
+            case Expr.Binary b -> {
+                variables(b.lhs(), names);
+                variables(b.rhs(), names);
+            }
+            case Expr.Grouping(var e) -> variables(e, names);
+            case Expr.Unary u -> variables(u.expr(), names);
+            case Expr.Variable v -> names.add(v.name().lexeme());
+            case Literal literal -> {}
+        }
+    }
+
+    // null when the binding can't be substituted: not defined yet, or not a value a literal can hold
+    private Literal stableValue(String name, Map<String, Long> assumed) {
+        // an undefined name is an assumption too, defining it later invalidates the residual
+        assumed.put(name, env.version(name));
+        if (!env.isDefined(name)) return null;
+        try {
+            return ConstantFolder.asLiteral(env.valueOf(name));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package org.kogu.lox.ch08_statements;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * {@link Globals} in a hash array mapped trie, so that {@link #fork()} and {@link #snapshot()} cost
+ * O(1) and leave every node shared.
+ * <p>
+ * A define copies the path from the root to its leaf, at most seven nodes, and the table that took a
+ * fork or snapshot keeps copying until it owns the path again. Nodes a table created since its last
+ * fork are its own and updated in place, so a run of defines does not copy the same path over and
+ * over. Memory grows with the defines made after a fork, whatever the number of forks.
+ * <p>
+ * Not thread-safe, but a snapshot never changes and can be read from any thread once handed over.
+ */
+public final class PersistentSymbolTable implements Globals {
+    private static final int BITS = 5, MASK = (1 << BITS) - 1;
+
+    private record Leaf(int symbol, Object value, long version) {}
+
+    // slots hold a Leaf or a Node per bit set in bitmap, in bit order
+    private static final class Node {
+        final Object owner;
+        int bitmap;
+        Object[] slots;
+
+        Node(Object owner, int bitmap, Object[] slots) {
+            this.owner = owner;
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+    }
+
+    private Node root;
+    // replaced by every fork and snapshot, which makes all existing nodes shared
+    private Object owner = new Object();
+    private final boolean frozen;
+    // shared by all forks, so no two of them stamp the same version
+    private final AtomicLong lastVersion;
+
+    public PersistentSymbolTable() {
+        this(new Node(null, 0, new Object[0]), new AtomicLong(), false);
+    }
+
+    private PersistentSymbolTable(Node root, AtomicLong lastVersion, boolean frozen) {
+        this.root = root;
+        this.lastVersion = lastVersion;
+        this.frozen = frozen;
+    }
+
+    // a table of its own, starting with the same bindings
+    public PersistentSymbolTable fork() {
+        owner = new Object();
+        return new PersistentSymbolTable(root, lastVersion, false);
+    }
+
+    // the bindings as of now, read-only
+    public PersistentSymbolTable snapshot() {
+        if (frozen) return this;
+        owner = new Object();
+        return new PersistentSymbolTable(root, lastVersion, true);
+    }
+
+    public Object get(SymbolTable.Site site) {
+        Leaf leaf = find(site.symbol);
+        return leaf == null ? UNDEFINED : leaf.value();
+    }
+
+    public void define(SymbolTable.Site site, Object value) {
+        checkWritable();
+        int symbol = site.symbol;
+        root = put(root, SymbolTable.hash(symbol), 0, new Leaf(symbol, value, lastVersion.incrementAndGet()));
+    }
+
+    public boolean assign(SymbolTable.Site site, Object value) {
+        checkWritable();
+        if (find(site.symbol) == null) return false;
+        define(site, value);
+        return true;
+    }
+
+    public long version(SymbolTable.Site site) {
+        Leaf leaf = find(site.symbol);
+        return leaf == null ? 0 : leaf.version();
+    }
+
+    public void forEach(ObjIntConsumer<Object> action) {
+        forEach(root, action);
+    }
+
+    private static void forEach(Node node, ObjIntConsumer<Object> action) {
+        for (Object slot : node.slots) {
+            if (slot instanceof Leaf leaf) action.accept(leaf.value(), leaf.symbol());
+            else forEach((Node) slot, action);
+        }
+    }
+
+    private Leaf find(int symbol) {
+        int hash = SymbolTable.hash(symbol);
+        Node node = root;
+        for (int shift = 0; ; shift += BITS) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((node.bitmap & bit) == 0) return null;
+            Object slot = node.slots[Integer.bitCount(node.bitmap & (bit - 1))];
+            if (slot instanceof Leaf leaf) return leaf.symbol() == symbol ? leaf : null;
+            node = (Node) slot;
+        }
+    }
+
+    private Node put(Node node, int hash, int shift, Leaf leaf) {
+        int bit = 1 << ((hash >>> shift) & MASK);
+        int i = Integer.bitCount(node.bitmap & (bit - 1));
+        if ((node.bitmap & bit) == 0) {
+            Object[] slots = new Object[node.slots.length + 1];
+            System.arraycopy(node.slots, 0, slots, 0, i);
+            slots[i] = leaf;
+            System.arraycopy(node.slots, i, slots, i + 1, node.slots.length - i);
+            if (node.owner != owner) return new Node(owner, node.bitmap | bit, slots);
+            node.bitmap |= bit;
+            node.slots = slots;
+            return node;
+        }
+
+        Object slot = node.slots[i];
+        Object replacement = switch (slot) {
+            case Leaf other when other.symbol() == leaf.symbol() -> leaf;
+            case Leaf other -> pair(other, SymbolTable.hash(other.symbol()), leaf, hash, shift + BITS);
+            default -> put((Node) slot, hash, shift + BITS, leaf);
+        };
+        if (node.owner == owner) {
+            node.slots[i] = replacement;
+            return node;
+        }
+        Object[] slots = node.slots.clone();
+        slots[i] = replacement;
+        return new Node(owner, node.bitmap, slots);
+    }
+
+    // SymbolTable.hash is a bijection, two symbols always part ways before the bits run out
+    private Node pair(Leaf a, int hashA, Leaf b, int hashB, int shift) {
+        int fragmentA = (hashA >>> shift) & MASK, fragmentB = (hashB >>> shift) & MASK;
+        if (fragmentA == fragmentB)
+            return new Node(owner, 1 << fragmentA, new Object[]{pair(a, hashA, b, hashB, shift + BITS)});
+        Object[] slots = fragmentA < fragmentB ? new Object[]{a, b} : new Object[]{b, a};
+        return new Node(owner, (1 << fragmentA) | (1 << fragmentB), slots);
+    }
+
+    private void checkWritable() {
+        if (frozen) throw new UnsupportedOperationException("A snapshot is read-only");
+    }
+}
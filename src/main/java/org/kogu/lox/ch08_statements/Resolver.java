@@ -0,0 +1,153 @@
+package org.kogu.lox.ch08_statements;
+
+import org.kogu.lox.ch04_scanning.Token;
+import org.kogu.lox.ch05_ast.Expr;
+import org.kogu.lox.ch05_ast.Literal;
+import org.kogu.lox.ch06_parser.Error;
+import org.kogu.lox.ch06_parser.ErrorReporter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gives every local variable a {@link Address}: how many blocks out it was declared, and its slot in
+ * that block's {@link Frame}.
+ * <p>
+ * Names used outside of any block, or not declared in an enclosing one, are left unresolved and
+ * looked up in the global {@link Environment} at runtime, each through its own
+ * {@link SymbolTable.Site}. Only a global declaration interns its name in {@link Symbols}: a global
+ * no program has defined yet gets no site, and is looked up by name when it runs, so misspelled names
+ * do not fill the symbol table. Nodes are keyed by identity, as two {@code Expr.Variable}s for the
+ * same name are equal records.
+ */
+public final class Resolver {
+    public record Address(int depth, int slot) {}
+
+    public static final class Resolution {
+        // an Address for a local, a Site for a global, nothing for a global not yet defined anywhere
+        private final Map<Object, Object> bindings = new IdentityHashMap<>();
+        private final Map<Stmt.Block, Integer> frameSizes = new IdentityHashMap<>();
+
+        // null for a global
+        public Address addressOf(Expr.Variable variable) {
+            return bindingOf(variable) instanceof Address a ? a : null;
+        }
+
+        // null for a global
+        public Address addressOf(Stmt.Assign assign) {
+            return bindingOf(assign) instanceof Address a ? a : null;
+        }
+
+        // always depth 0, null for a global declaration
+        public Address addressOf(Stmt.Var declaration) {
+            return bindingOf(declaration) instanceof Address a ? a : null;
+        }
+
+        // one lookup for either kind of variable
+        Object bindingOf(Object node) {
+            return bindings.get(node);
+        }
+
+        public int frameSize(Stmt.Block block) {
+            Integer size = frameSizes.get(block);
+            if (size == null) throw new IllegalArgumentException("Block was not resolved: " + block);
+            return size;
+        }
+    }
+
+    private final Resolution resolution = new Resolution();
+    private final ErrorReporter reporter;
+    // innermost block last
+    private final List<Map<String, Integer>> scopes = new ArrayList<>();
+    // the local whose initializer is being resolved, if any
+    private String initializing;
+    private boolean hadError;
+
+    private Resolver(ErrorReporter reporter) {
+        this.reporter = reporter;
+    }
+
+    public static Resolution resolve(List<Stmt> program, ErrorReporter reporter) {
+        Resolver resolver = new Resolver(reporter);
+        for (Stmt stmt : program) resolver.resolve(stmt);
+        return resolver.hadError ? null : resolver.resolution;
+    }
+
+    private void resolve(Stmt stmt) {
+        switch (stmt) {
+            case Stmt.Expression(var e) -> resolve(e);
+            case Stmt.Print(var e) -> resolve(e);
+            case Stmt.Var v -> {
+                if (scopes.isEmpty()) {
+                    if (v.initializer() != null) resolve(v.initializer());
+                    resolution.bindings.put(v, new SymbolTable.Site(Symbols.intern(v.name().lexeme())));
+                    return;
+                }
+
+                Address address = declare(v.name());
+                resolution.bindings.put(v, address);
+                if (v.initializer() != null) {
+                    initializing = v.name().lexeme();
+                    resolve(v.initializer());
+                    initializing = null;
+                }
+            }
+            case Stmt.Assign a -> {
+                resolve(a.value());
+                resolveLocal(a, a.name());
+            }
+            case Stmt.Block b -> {
+                scopes.add(new HashMap<>());
+                for (Stmt s : b.statements()) resolve(s);
+                resolution.frameSizes.put(b, scopes.removeLast().size());
+            }
+        }
+    }
+
+    private void resolve(Expr expr) {
+        switch (expr) {
+            case Expr.Binary b -> {
+                resolve(b.lhs());
+                resolve(b.rhs());
+            }
+            case Expr.Grouping(var e) -> resolve(e);
+            case Expr.Unary u -> resolve(u.expr());
+            case Expr.Variable v -> {
+                if (v.name().lexeme().equals(initializing) && scopes.getLast().containsKey(initializing))
+                    error(v.name(), "Can't read local variable in its own initializer.");
+                resolveLocal(v, v.name());
+            }
+            case Literal _ -> {}
+        }
+    }
+
+    private Address declare(Token name) {
+        Map<String, Integer> scope = scopes.getLast();
+        if (scope.containsKey(name.lexeme()))
+            error(name, "Already a variable with this name in this scope.");
+
+        int slot = scope.size();
+        scope.put(name.lexeme(), slot);
+        return new Address(0, slot);
+    }
+
+    private void resolveLocal(Object node, Token name) {
+        for (int i = scopes.size() - 1; i >= 0; i--) {
+            Integer slot = scopes.get(i).get(name.lexeme());
+            if (slot != null) {
+                resolution.bindings.put(node, new Address(scopes.size() - 1 - i, slot));
+                return;
+            }
+        }
+        int symbol = Symbols.lookup(name.lexeme());
+        if (symbol >= 0) resolution.bindings.put(node, new SymbolTable.Site(symbol));
+    }
+
+    private void error(Token name, String message) {
+        hadError = true;
+        reporter.handle(Error.resolveError("[line " + name.line() + "] at '" + name.lexeme() + "': " + message));
+    }
+}
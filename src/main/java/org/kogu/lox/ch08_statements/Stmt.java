@@ -0,0 +1,45 @@
+package org.kogu.lox.ch08_statements;
+
+import org.kogu.lox.ch04_scanning.Token;
+import org.kogu.lox.ch04_scanning.TokenType;
+import org.kogu.lox.ch05_ast.Expr;
+
+import java.util.List;
+
+public sealed interface Stmt permits Stmt.Expression, Stmt.Print, Stmt.Var, Stmt.Assign, Stmt.Block {
+    record Expression(Expr expr) implements Stmt {}
+
+    record Print(Expr expr) implements Stmt {}
+
+    // initializer is null for `var a;`
+    record Var(Token name, Expr initializer) implements Stmt {}
+
+    // a statement, not an expression, until Expr grows side effects
+    record Assign(Token name, Expr value) implements Stmt {}
+
+    record Block(List<Stmt> statements) implements Stmt {}
+
+    static Stmt expression(Expr expr) {
+        return new Expression(expr);
+    }
+
+    static Stmt print(Expr expr) {
+        return new Print(expr);
+    }
+
+    static Stmt var(String name, Expr initializer) {
+        return new Var(identifier(name), initializer);
+    }
+
+    static Stmt assign(String name, Expr value) {
+        return new Assign(identifier(name), value);
+    }
+
+    static Stmt block(Stmt... statements) {
+        return new Block(List.of(statements));
+    }
+
+    private static Token identifier(String name) {
+        return Token.of(TokenType.IDENTIFIER, name, Token.SYNTHETIC_LINE);
+    }
+}
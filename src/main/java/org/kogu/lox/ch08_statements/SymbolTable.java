@@ -0,0 +1,158 @@
+package org.kogu.lox.ch08_statements;
+
+import java.util.Arrays;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Open-addressing table from {@link Symbols} ids to values.
+ * <p>
+ * Entries live in dense arrays, in the order they were added, and never move: the hash part only
+ * maps an id to its entry's index, so rehashing leaves every index valid. That is what makes a
+ * {@link Site}'s cached index safe to reuse without re-hashing. An entry can exist before its
+ * variable is defined (a site may reserve it up front); a separate bitset says which entries are
+ * defined, so a {@code nil} value is never mistaken for a missing one.
+ * <p>
+ * Not thread-safe.
+ */
+public final class SymbolTable implements Globals {
+    private static final int FREE = -1;
+
+    /**
+     * One place in the code that reads or writes a given symbol, remembering where it was found.
+     */
+    public static final class Site {
+        final int symbol;
+        int hint = FREE;
+
+        public Site(int symbol) {
+            this.symbol = symbol;
+        }
+    }
+
+    // hash part: entry index per bucket, linear probing
+    private int[] buckets = newBuckets(16);
+    // dense part
+    private int[] symbols = new int[8];
+    private Object[] values = new Object[8];
+    private long[] versions = new long[8];
+    private long[] defined = new long[1];
+    private int size;
+    private long lastVersion;
+
+    // entry index of a symbol, or -1 if it has none
+    public int find(int symbol) {
+        int mask = buckets.length - 1;
+        for (int b = hash(symbol) & mask; ; b = (b + 1) & mask) {
+            int entry = buckets[b];
+            if (entry == FREE) return FREE;
+            if (symbols[entry] == symbol) return entry;
+        }
+    }
+
+    // entry index of a symbol, reserved as undefined if it has none
+    public int reserve(int symbol) {
+        int entry = find(symbol);
+        return entry != FREE ? entry : add(symbol);
+    }
+
+    // entry index the site refers to, -1 if the symbol has none; the hint is checked, never trusted
+    public int find(Site site) {
+        int hint = site.hint;
+        if (hint >= 0 && hint < size && symbols[hint] == site.symbol) return hint;
+
+        int entry = find(site.symbol);
+        if (entry != FREE) site.hint = entry;
+        return entry;
+    }
+
+    public boolean isDefined(int entry) {
+        return entry >= 0 && (defined[entry >>> 6] & (1L << entry)) != 0;
+    }
+
+    public Object value(int entry) {
+        return values[entry];
+    }
+
+    // 0 while undefined, then a table-wide counter stamped by each define
+    public long version(int entry) {
+        return entry < 0 ? 0 : versions[entry];
+    }
+
+    public void define(int entry, Object value) {
+        values[entry] = value;
+        versions[entry] = ++lastVersion;
+        defined[entry >>> 6] |= 1L << entry;
+    }
+
+    public Object get(Site site) {
+        int entry = find(site);
+        return isDefined(entry) ? values[entry] : UNDEFINED;
+    }
+
+    public void define(Site site, Object value) {
+        int entry = find(site);
+        define(entry >= 0 ? entry : reserve(site.symbol), value);
+    }
+
+    public boolean assign(Site site, Object value) {
+        int entry = find(site);
+        if (!isDefined(entry)) return false;
+        define(entry, value);
+        return true;
+    }
+
+    public long version(Site site) {
+        return version(find(site));
+    }
+
+    public void forEach(ObjIntConsumer<Object> action) {
+        for (int entry = 0; entry < size; entry++)
+            if (isDefined(entry)) action.accept(values[entry], symbols[entry]);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int add(int symbol) {
+        if (size == symbols.length) {
+            int capacity = size * 2;
+            symbols = Arrays.copyOf(symbols, capacity);
+            values = Arrays.copyOf(values, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+            defined = Arrays.copyOf(defined, (capacity + 63) >>> 6);
+        }
+        int entry = size++;
+        symbols[entry] = symbol;
+
+        // load factor <= 0.5 keeps probe sequences short
+        if (size * 2 > buckets.length) rehash(buckets.length * 2);
+        else insert(buckets, entry);
+        return entry;
+    }
+
+    private void rehash(int capacity) {
+        int[] grown = newBuckets(capacity);
+        for (int entry = 0; entry < size; entry++) insert(grown, entry);
+        buckets = grown;
+    }
+
+    private void insert(int[] table, int entry) {
+        int mask = table.length - 1;
+        int b = hash(symbols[entry]) & mask;
+        while (table[b] != FREE) b = (b + 1) & mask;
+        table[b] = entry;
+    }
+
+    private static int[] newBuckets(int capacity) {
+        int[] b = new int[capacity];
+        Arrays.fill(b, FREE);
+        return b;
+    }
+
+    // ids are small and consecutive, spread them over the table; one-to-one, as both steps are
+    static int hash(int symbol) {
+        int h = symbol * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,36 @@
+package org.kogu.lox.ch08_statements;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Interns variable names to dense int ids, shared by every {@link SymbolTable} in the JVM.
+ */
+public final class Symbols {
+    private static final ConcurrentHashMap<String, Integer> IDS = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Integer, String> NAMES = new ConcurrentHashMap<>();
+    private static final AtomicInteger NEXT = new AtomicInteger();
+
+    public static int intern(String name) {
+        Integer id = IDS.get(name);
+        return id != null ? id : IDS.computeIfAbsent(name, Symbols::next);
+    }
+
+    // -1 for a name never interned, without interning it
+    public static int lookup(String name) {
+        Integer id = IDS.get(name);
+        return id != null ? id : -1;
+    }
+
+    public static String name(int symbol) {
+        String name = NAMES.get(symbol);
+        if (name == null) throw new IllegalArgumentException("Not a symbol: " + symbol);
+        return name;
+    }
+
+    private static int next(String name) {
+        int id = NEXT.getAndIncrement();
+        NAMES.put(id, name);
+        return id;
+    }
+}
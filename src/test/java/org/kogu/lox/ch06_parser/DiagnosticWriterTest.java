@@ -0,0 +1,75 @@
+package org.kogu.lox.ch06_parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DiagnosticWriterTest {
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8);
+
+    @Test
+    void closePrintsEverythingQueued() {
+        try (DiagnosticWriter writer = new DiagnosticWriter(out, 16, 10)) {
+            ErrorReporter a = writer.reporter("a.lox");
+            ErrorReporter b = writer.reporter(null);
+            a.handle(Error.parseError("first", 1, "x"));
+            b.handle(Error.parseError("second", 1, "x"));
+            assertThat(a.receivedError()).isTrue();
+        }
+        assertThat(output()).containsExactly("a.lox: first", "second");
+    }
+
+    @Test
+    void capsErrorsPerSource() {
+        try (DiagnosticWriter writer = new DiagnosticWriter(out, 1024, 2)) {
+            ErrorReporter noisy = writer.reporter("noisy");
+            ErrorReporter quiet = writer.reporter("quiet");
+            for (int i = 0; i < 100; i++) noisy.handle(Error.parseError("e" + i, 1, "x"));
+            quiet.handle(Error.parseError("q", 1, "x"));
+        }
+        assertThat(output()).containsExactly("noisy: e0", "noisy: e1", "noisy: Too many errors, not showing any more.", "quiet: q");
+    }
+
+    @Test
+    void resetStartsANewCount() {
+        try (DiagnosticWriter writer = new DiagnosticWriter(out, 16, 1)) {
+            ErrorReporter reporter = writer.reporter(null);
+            reporter.handle(Error.parseError("one", 1, "x"));
+            reporter.reset();
+            assertThat(reporter.receivedError()).isFalse();
+            reporter.handle(Error.parseError("two", 1, "x"));
+        }
+        assertThat(output()).containsExactly("one", "two");
+    }
+
+    @Test
+    void fullQueueDropsInsteadOfBlocking() {
+        long dropped;
+        try (DiagnosticWriter writer = new DiagnosticWriter(out, 1, 1)) {
+            for (int i = 0; i < 10_000; i++) writer.reporter("s" + i).handle(Error.parseError("e", 1, "x"));
+            dropped = writer.dropped();
+        }
+        assertThat(dropped).isPositive();
+        String[] lines = output();
+        assertThat(lines.length).isLessThan(10_000);
+        assertThat(lines).anyMatch(line -> line.endsWith("more diagnostics dropped, output could not keep up"));
+    }
+
+    @Test
+    void closeReturnsWhenInterrupted() {
+        DiagnosticWriter writer = new DiagnosticWriter(out, 16, 10);
+        writer.reporter(null).handle(Error.parseError("queued", 1, "x"));
+        Thread.currentThread().interrupt();
+        writer.close();
+        assertThat(Thread.interrupted()).isTrue();
+    }
+
+    private String[] output() {
+        return bytes.toString(StandardCharsets.UTF_8).lines().toArray(String[]::new);
+    }
+}
@@ -0,0 +1,130 @@
+package org.kogu.lox.ch07_eval;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.kogu.lox.ch04_scanning.Scanner;
+import org.kogu.lox.ch04_scanning.Token;
+import org.kogu.lox.ch05_ast.Expr;
+import org.kogu.lox.ch05_ast.ExprPrinter;
+import org.kogu.lox.ch05_ast.Literal;
+import org.kogu.lox.ch06_parser.ErrorReporter;
+import org.kogu.lox.ch06_parser.Parser;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// bytes per token or per node of every phase, against allocation-budgets.properties
+@Tag("allocation")
+class AllocationBudgetTest {
+    private static final Map<String, String> INPUTS = new LinkedHashMap<>();
+
+    static {
+        INPUTS.put("expr", "(1 + 2) * 3 - 4 / 2.5 >= 1");
+        INPUTS.put("strings", "\"lox\" + \"is\" + \"fun\" == \"loxisfun\"");
+        INPUTS.put("large", balanced(9, new int[1]));
+    }
+
+    private final AllocationBudgets budgets = new AllocationBudgets();
+
+    @BeforeAll
+    static void recordJdk() {
+        if (AllocationBudgets.RECORD) System.out.println("jdk=" + Runtime.version().feature());
+    }
+
+    @BeforeEach
+    void recordedOnThisJdk() {
+        // fails rather than skips: a gate that never runs on the real toolchain is no gate
+        int jdk = Runtime.version().feature();
+        if (!AllocationBudgets.RECORD)
+            assertThat(budgets.jdk())
+                .as("%s was recorded on JDK %d, this is JDK %d: run `mvn test -Dallocation.record=true` and commit what it prints",
+                    AllocationBudgets.FILE, budgets.jdk(), jdk)
+                .isEqualTo(jdk);
+    }
+
+    @Test
+    void scan() {
+        perToken("scan", source -> () -> new Scanner(source).scanTokens());
+    }
+
+    @Test
+    void parse() {
+        perToken("parse", source -> {
+            List<Token> tokens = new Scanner(source).scanTokens();
+            ErrorReporter reporter = ErrorReporter.fakeReporter();
+            return () -> Parser.parse(tokens, reporter);
+        });
+    }
+
+    @Test
+    void pipeline() {
+        perToken("pipeline", source -> () -> new Pipeline(source).run());
+    }
+
+    @Test
+    void print() {
+        perNode("infix", expr -> () -> ExprPrinter.asInfix(expr));
+        perNode("rpn", expr -> () -> ExprPrinter.asRPN(expr));
+        perNode("lispy", expr -> () -> ExprPrinter.lispy(expr));
+    }
+
+    @Test
+    void eval() {
+        perNode("eval", expr -> () -> Interpreter.eval(expr));
+    }
+
+    private void perToken(String phase, Function<String, Supplier<?>> setUp) {
+        INPUTS.forEach((name, source) ->
+            check(phase + "." + name, setUp.apply(source), new Scanner(source).scanTokens().size()));
+    }
+
+    private void perNode(String phase, Function<Expr, Supplier<?>> setUp) {
+        INPUTS.forEach((name, source) -> {
+            Expr expr = new Pipeline(source).parse().orElseThrow();
+            check(phase + "." + name, setUp.apply(expr), nodes(expr));
+        });
+    }
+
+    private void check(String key, Supplier<?> phase, long ops) {
+        double measured = AllocationBudgets.bytesPerOp(phase, ops);
+        if (AllocationBudgets.RECORD) {
+            System.out.printf(Locale.ROOT, "%s=%.1f%n", key, measured);
+            return;
+        }
+        double budget = budgets.budget(key);
+        assertThat(budget)
+            .as("no budget for %s in %s, measured %.1f B/op", key, AllocationBudgets.FILE, measured)
+            .isNotNaN();
+        assertThat(measured)
+            .as("%s allocates %.1f B/op, budget %.1f", key, measured, budget)
+            .isLessThanOrEqualTo(budget * (1 + AllocationBudgets.TOLERANCE));
+    }
+
+    private static long nodes(Expr expr) {
+        return switch (expr) {
+            case Expr.Binary b -> 1 + nodes(b.lhs()) + nodes(b.rhs());
+            case Expr.Grouping(var e) -> 1 + nodes(e);
+            case Expr.Unary u -> 1 + nodes(u.expr());
+            case Expr.Variable v -> 1;
+            case Literal literal -> 1;
+        };
+    }
+
+    // 2^depth leaves, integers and doubles, never divides
+    private static String balanced(int depth, int[] leaves) {
+        if (depth == 0) {
+            int n = leaves[0]++;
+            return n % 2 == 0 ? Integer.toString(n % 9 + 1) : (n % 9 + 1) + ".5";
+        }
+        String op = new String[]{" + ", " - ", " * "}[depth % 3];
+        return "(" + balanced(depth - 1, leaves) + op + balanced(depth - 1, leaves) + ")";
+    }
+}
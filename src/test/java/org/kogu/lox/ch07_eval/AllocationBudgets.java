@@ -0,0 +1,71 @@
+package org.kogu.lox.ch07_eval;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Properties;
+import java.util.function.Supplier;
+
+/**
+ * Bytes a phase allocates per operation on the current thread, and the budgets in
+ * {@value #FILE} they are held to.
+ * <p>
+ * A phase is warmed up first so the JIT has compiled it, escape analysis included, and the best of
+ * a few rounds counts: the allocation counter is exact, what varies is the compiled code.
+ */
+final class AllocationBudgets {
+    static final String FILE = "allocation-budgets.properties";
+    // over the budget by more than this fails, compiled code varies a little from one machine to another
+    static final double TOLERANCE = Double.parseDouble(System.getProperty("allocation.tolerance", "0.10"));
+    // prints what was measured as lines for the file instead of failing
+    static final boolean RECORD = Boolean.getBoolean("allocation.record");
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static final long WARMUP_OPS = 2_000_000;
+    private static final long ROUND_OPS = 200_000;
+    private static final int ROUNDS = 5;
+
+    // keeps the JIT from dropping a phase whose result is never used
+    private static volatile Object sink;
+
+    private final Properties budgets = new Properties();
+
+    AllocationBudgets() {
+        try (InputStream in = AllocationBudgets.class.getClassLoader().getResourceAsStream(FILE)) {
+            if (in == null) throw new IllegalStateException(FILE + " is not on the test classpath");
+            budgets.load(in);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read " + FILE, e);
+        }
+    }
+
+    // the feature release of the JDK the budgets were recorded on, 0 if the file does not say
+    int jdk() {
+        return Integer.parseInt(budgets.getProperty("jdk", "0"));
+    }
+
+    // NaN when the file has no budget for key
+    double budget(String key) {
+        String value = budgets.getProperty(key);
+        return value == null ? Double.NaN : Double.parseDouble(value);
+    }
+
+    // ops is the number of operations one call of phase does, tokens scanned or nodes evaluated
+    static double bytesPerOp(Supplier<?> phase, long ops) {
+        if (!THREADS.isThreadAllocatedMemorySupported()) throw new UnsupportedOperationException("no allocation counter on this JVM");
+        if (!THREADS.isThreadAllocatedMemoryEnabled()) THREADS.setThreadAllocatedMemoryEnabled(true);
+
+        for (long i = 0; i < WARMUP_OPS; i += ops) sink = phase.get();
+
+        long calls = Math.max(1, ROUND_OPS / ops);
+        double best = Double.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long before = THREADS.getCurrentThreadAllocatedBytes();
+            for (long i = 0; i < calls; i++) sink = phase.get();
+            long allocated = THREADS.getCurrentThreadAllocatedBytes() - before;
+            best = Math.min(best, (double) allocated / (calls * ops));
+        }
+        return best;
+    }
+}
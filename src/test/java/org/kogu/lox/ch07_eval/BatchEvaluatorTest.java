@@ -0,0 +1,100 @@
+package org.kogu.lox.ch07_eval;
+
+import org.junit.jupiter.api.Test;
+import org.kogu.lox.ch05_ast.Expr;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.kogu.lox.ch05_ast.BinaryOperator.*;
+import static org.kogu.lox.ch05_ast.Expr.*;
+
+class BatchEvaluatorTest {
+    // longer than any vector, so both the full and the masked tail loop run
+    private static final int ROWS = 67;
+
+    private final int[] xs = new int[ROWS];
+    private final double[] ys = new double[ROWS];
+    private final boolean[] nil = new boolean[ROWS];
+
+    BatchEvaluatorTest() {
+        for (int i = 0; i < ROWS; i++) {
+            xs[i] = i - 10;
+            ys[i] = i * 0.5;
+            nil[i] = i % 7 == 0;
+        }
+    }
+
+    @Test
+    void vectorizedArithmeticAndComparison() {
+        Expr e = binary(binary(variable("x"), Multiply, literal(2)), LessThan, binary(variable("y"), Add, literal(1)));
+        BatchEvaluator.Result r = BatchEvaluator.evaluate(e, ROWS, Map.of("x", Column.of(xs), "y", Column.of(ys)));
+
+        for (int i = 0; i < ROWS; i++)
+            assertThat(r.get(i)).isEqualTo(xs[i] * 2 < ys[i] + 1);
+    }
+
+    @Test
+    void intsStayInts() {
+        BatchEvaluator.Result r = BatchEvaluator.evaluate(binary(variable("x"), Subtract, literal(1)), ROWS, Map.of("x", Column.of(xs)));
+        for (int i = 0; i < ROWS; i++)
+            assertThat(r.get(i)).isEqualTo(xs[i] - 1);
+    }
+
+    @Test
+    void failedRowsKeepTheirOwnError() {
+        BatchEvaluator.Result r = BatchEvaluator.evaluate(binary(literal(100), Divide, variable("x")), ROWS, Map.of("x", Column.of(xs)));
+
+        assertThat(r.get(0)).isEqualTo(-10);
+        assertThat(r.error(10)).hasMessage("Cannot divide by zero");
+        assertThatThrownBy(() -> r.get(10)).isInstanceOf(LoxRuntimeError.class);
+        assertThat(r.selection()[10]).isFalse();
+    }
+
+    @Test
+    void nilRowsFollowInterpreterSemantics() {
+        Map<String, Column> in = Map.of("x", Column.of(xs, nil));
+
+        BatchEvaluator.Result sum = BatchEvaluator.evaluate(binary(variable("x"), Add, literal(1)), ROWS, in);
+        assertThat(sum.error(7)).hasMessage("Operands must be numbers.");
+        assertThat(sum.get(8)).isEqualTo(-1);
+
+        BatchEvaluator.Result isNil = BatchEvaluator.evaluate(binary(variable("x"), Eq, nil()), ROWS, in);
+        for (int i = 0; i < ROWS; i++)
+            assertThat(isNil.get(i)).isEqualTo(nil[i]);
+    }
+
+    @Test
+    void rhsOnlyRunsForRowsThatDidNotShortCircuit() {
+        // x == 0 would divide by zero, unless `x != 0 and` already stopped that row
+        Expr e = binary(binary(variable("x"), NotEq, literal(0)), And, binary(binary(literal(10.0), Divide, variable("x")), GreaterThan, literal(0)));
+        BatchEvaluator.Result r = BatchEvaluator.evaluate(e, ROWS, Map.of("x", Column.of(xs)));
+
+        for (int i = 0; i < ROWS; i++)
+            assertThat(r.get(i)).isEqualTo(xs[i] > 0);
+    }
+
+    @Test
+    void stringsFallBackToRowByRow() {
+        String[] names = {"a", null, "c"};
+        BatchEvaluator.Result r = BatchEvaluator.evaluate(binary(variable("s"), Add, literal("!")), 3, Map.of("s", Column.of(names)));
+
+        assertThat(r.get(0)).hasToString("a!");
+        assertThat(r.get(1)).hasToString("nil!");
+        assertThat(r.get(2)).hasToString("c!");
+    }
+
+    @Test
+    void unboundVariableFailsEveryRow() {
+        BatchEvaluator.Result r = BatchEvaluator.evaluate(binary(variable("x"), Or, variable("z")), ROWS, Map.of("x", Column.of(xs)));
+        for (int i = 0; i < ROWS; i++)
+            assertThat(r.error(i)).hasMessage("Undefined variable 'z'.");
+    }
+
+    @Test
+    void columnsMustMatchRowCount() {
+        assertThatThrownBy(() -> BatchEvaluator.evaluate(variable("x"), ROWS + 1, Map.of("x", Column.of(xs))))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,56 @@
+package org.kogu.lox.ch07_eval;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BatchRunnerTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void runsEveryScriptAndKeepsResultsApart() throws IOException {
+        Path ok = write("ok.lox", "1 + 2");
+        Path parse = write("parse.lox", "(1 +");
+        Path runtime = write("nested/runtime.lox", "1 / 0");
+        Path missing = dir.resolve("missing.lox");
+
+        List<BatchRunner.FileResult> results = new BatchRunner(2).run(List.of(ok, parse, runtime, missing));
+
+        assertThat(results).extracting(BatchRunner.FileResult::file).containsExactly(ok, parse, runtime, missing);
+        assertThat(results).extracting(BatchRunner.FileResult::exitCode).containsExactly(0, 65, 70, BatchRunner.EX_NOINPUT);
+        assertThat(results.get(0).output()).isEqualTo("3");
+        assertThat(results.get(0).diagnostics()).isEmpty();
+        assertThat(results.get(1).diagnostics()).containsExactly("[line 1] Error at end: Expect expression.");
+        assertThat(BatchRunner.exitCode(results)).isEqualTo(70);
+
+        ByteArrayOutputStream summary = new ByteArrayOutputStream();
+        BatchRunner.printSummary(results, new PrintStream(summary, true));
+        assertThat(summary.toString()).contains("4 scripts, 3 failed");
+    }
+
+    @Test
+    void expandsDirectoriesAndGlobs() throws IOException {
+        Path a = write("a.lox", "1");
+        Path b = write("sub/b.lox", "2");
+        write("sub/notes.txt", "not a script");
+
+        assertThat(BatchRunner.expand(List.of(dir.toString()))).containsExactly(a, b);
+        assertThat(BatchRunner.expand(List.of(dir + "/sub/*.lox"))).containsExactly(b);
+        assertThat(BatchRunner.expand(List.of(dir + "/**.lox"))).containsExactly(a, b);
+    }
+
+    private Path write(String name, String source) throws IOException {
+        Path file = dir.resolve(name);
+        Files.createDirectories(file.getParent());
+        return Files.writeString(file, source);
+    }
+}
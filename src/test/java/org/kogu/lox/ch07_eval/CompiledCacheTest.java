@@ -0,0 +1,89 @@
+package org.kogu.lox.ch07_eval;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompiledCacheTest {
+    private final CompiledCache cache = new CompiledCache(2, (source, compiled) -> 1, 1);
+
+    @Test
+    void sameSourceCompilesOnce() {
+        Pipeline.Compiled first = cache.compile("1 + 2");
+        assertThat(cache.compile(new String("1 + 2"))).isSameAs(first);
+        assertThat(Pipeline.run(first).value()).isEqualTo(3);
+
+        assertThat(cache.stats().hitCount()).isEqualTo(1);
+        assertThat(cache.stats().missCount()).isEqualTo(1);
+    }
+
+    @Test
+    void compileErrorsAreCachedWithTheirDiagnostics() {
+        cache.compile("(1 +");
+        Pipeline.Compiled again = cache.compile("(1 +");
+
+        assertThat(again.expr()).isNull();
+        assertThat(again.diagnostics()).containsExactly("[line 1] Error at end: Expect expression.");
+        assertThat(cache.stats().hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        cache.compile("1");
+        cache.compile("2");
+        cache.compile("1");
+        cache.compile("3");
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.stats().evictionCount()).isEqualTo(1);
+        cache.compile("1");
+        assertThat(cache.stats().hitCount()).isEqualTo(2);
+    }
+
+    @Test
+    void oneOffSourcesDoNotFlushReusedOnes() {
+        CompiledCache slru = new CompiledCache(10, (source, compiled) -> 1, 1);
+        Pipeline.Compiled hot = slru.compile("1 + 1");
+        slru.compile("1 + 1");
+        for (int i = 0; i < 1000; i++) slru.compile(i + " * 2");
+
+        assertThat(slru.compile("1 + 1")).isSameAs(hot);
+        assertThat(slru.size()).isEqualTo(10);
+        assertThat(slru.stats().evictionCount()).isEqualTo(1001 - 10);
+    }
+
+    @Test
+    void boundedByEstimatedBytes() {
+        CompiledCache bytes = CompiledCache.ofBytes(4096);
+        for (int i = 0; i < 1000; i++) bytes.compile(i + " + " + i);
+
+        assertThat(bytes.size()).isBetween(1L, 100L);
+        assertThat(bytes.stats().evictionCount()).isEqualTo(1000 - bytes.size());
+    }
+
+    @Test
+    void concurrentMissesCompileOnce() throws Exception {
+        CompiledCache shared = CompiledCache.ofEntries(100);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Pipeline.Compiled>> results = new ArrayList<>();
+        try (ExecutorService threads = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 8; i++)
+                results.add(threads.submit(() -> {
+                    start.await();
+                    return shared.compile("(1 + 2) * 3");
+                }));
+            start.countDown();
+        }
+
+        for (Future<Pipeline.Compiled> r : results) assertThat(r.get()).isSameAs(results.getFirst().get());
+        assertThat(shared.stats().missCount()).isEqualTo(1);
+        assertThat(shared.stats().hitCount()).isEqualTo(7);
+    }
+}
@@ -0,0 +1,92 @@
+package org.kogu.lox.ch07_eval;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.kogu.lox.ch05_ast.Expr;
+import org.kogu.lox.ch05_ast.Literal;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CorpusGeneratorTest {
+    @TempDir
+    Path dir;
+
+    private final CorpusGenerator.Options defaults = CorpusGenerator.Options.defaults(42);
+
+    @Test
+    void sameSeedSameSource() throws IOException {
+        CorpusGenerator generator = new CorpusGenerator(defaults);
+        assertThat(source(generator, 7)).isEqualTo(source(new CorpusGenerator(defaults), 7))
+            .isNotEqualTo(source(generator, 8))
+            .isNotEqualTo(source(new CorpusGenerator(CorpusGenerator.Options.defaults(43)), 7));
+    }
+
+    @Test
+    void validSourcesEvaluate() throws IOException {
+        CorpusGenerator generator = new CorpusGenerator(with(defaults, 1, 0));
+        for (int i = 0; i < 500; i++) {
+            String source = source(generator, i);
+            assertThat(new Pipeline(source).run().status()).as(source).isEqualTo(Pipeline.Status.Ok);
+        }
+    }
+
+    @Test
+    void invalidSourcesDoNotCompile() throws IOException {
+        CorpusGenerator generator = new CorpusGenerator(with(defaults, 0, 1));
+        for (int i = 0; i < 500; i++) {
+            String source = source(generator, i);
+            assertThat(new Pipeline(source).run().status()).as(source).isEqualTo(Pipeline.Status.CompileError);
+        }
+    }
+
+    @Test
+    void depthIsCapped() throws IOException {
+        CorpusGenerator.Options o = defaults;
+        CorpusGenerator generator = new CorpusGenerator(new CorpusGenerator.Options(
+            1, 10_000, 4, o.operators(), o.literals(), o.reuse(), o.comments(), o.invalid()));
+        for (int i = 0; i < 100; i++) {
+            Expr expr = new Pipeline(source(generator, i)).parse().orElseThrow();
+            // a level of the tree may add parentheses for precedence on top of its own node
+            assertThat(depth(expr)).isLessThanOrEqualTo(2 * 4 + 1);
+        }
+    }
+
+    @Test
+    void generateWritesWhatJloxPrints() throws IOException {
+        List<Path> files = new CorpusGenerator(with(defaults, 0.5, 0.3)).generate(dir, 20);
+
+        assertThat(files).hasSize(20);
+        assertThat(files.getFirst().getFileName().toString()).isEqualTo("00.lox");
+        for (BatchRunner.FileResult r : new BatchRunner(1).run(files)) {
+            List<String> expected = Files.readAllLines(dir.resolve(r.file().getFileName().toString().replace(".lox", ".expected")));
+            assertThat(expected.getFirst()).isEqualTo(Integer.toString(r.exitCode()));
+            if (r.exitCode() == 0) assertThat(expected.get(1)).isEqualTo(r.output());
+            else assertThat(expected.subList(1, expected.size())).isEqualTo(r.diagnostics());
+        }
+    }
+
+    private static CorpusGenerator.Options with(CorpusGenerator.Options o, double comments, double invalid) {
+        return new CorpusGenerator.Options(o.seed(), o.leaves(), o.maxDepth(), o.operators(), o.literals(), o.reuse(), comments, invalid);
+    }
+
+    private static String source(CorpusGenerator generator, int index) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        generator.write(index, sb);
+        return sb.toString();
+    }
+
+    private static int depth(Expr expr) {
+        return switch (expr) {
+            case Expr.Binary b -> 1 + Math.max(depth(b.lhs()), depth(b.rhs()));
+            case Expr.Grouping(var e) -> 1 + depth(e);
+            case Expr.Unary u -> 1 + depth(u.expr());
+            case Expr.Variable v -> 1;
+            case Literal literal -> 1;
+        };
+    }
+}
@@ -0,0 +1,96 @@
+package org.kogu.lox.ch07_eval;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DaemonTest {
+    @TempDir
+    Path dir;
+    private Path socket;
+    private Daemon daemon;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        socket = dir.resolve("jlox.sock");
+        daemon = Daemon.start(socket);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        daemon.close();
+    }
+
+    @Test
+    void answersWithExitCodeOutputAndDiagnostics() throws IOException {
+        assertThat(Daemon.request(socket, "(1 + 2) * 1.5")).isEqualTo(new Daemon.Response(0, List.of("4.5"), List.of()));
+        assertThat(Daemon.request(socket, "nil")).isEqualTo(new Daemon.Response(0, List.of("nil"), List.of()));
+        assertThat(Daemon.request(socket, "(1 +").exitCode()).isEqualTo(65);
+
+        Daemon.Response runtime = Daemon.request(socket, "1 / 0");
+        assertThat(runtime.exitCode()).isEqualTo(70);
+        assertThat(runtime.err()).containsExactly("Cannot divide by zero");
+    }
+
+    @Test
+    void answersWhenTheInterpreterFails() throws IOException {
+        // nested deeper than the recursive parser can go
+        Daemon.Response failed = Daemon.request(socket, "(".repeat(200_000) + "1" + ")".repeat(200_000));
+        assertThat(failed.exitCode()).isEqualTo(70);
+        assertThat(failed.err()).singleElement().asString().startsWith("Interpreter failed: java.lang.StackOverflowError");
+
+        assertThat(Daemon.request(socket, "1 + 1").out()).containsExactly("2");
+    }
+
+    @Test
+    void concurrentRequestsShareCompiledSources() throws Exception {
+        List<Future<Daemon.Response>> responses = new ArrayList<>();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 200; i++) {
+                String source = (i % 10) + " * 2";
+                responses.add(clients.submit(() -> Daemon.request(socket, source)));
+            }
+        }
+
+        for (int i = 0; i < 200; i++)
+            assertThat(responses.get(i).get().out()).containsExactly(String.valueOf(i % 10 * 2));
+        assertThat(daemon.cachedCount()).isEqualTo(10);
+    }
+
+    @Test
+    void refusesALiveSocketButReplacesAStaleOne() throws IOException {
+        assertThat(Daemon.isRunning(socket)).isTrue();
+        assertThatThrownBy(() -> Daemon.start(socket)).isInstanceOf(IOException.class);
+
+        Path stale = dir.resolve("stale.sock");
+        Daemon.start(stale).close();
+        Files.createFile(stale);
+        try (Daemon replacement = Daemon.start(stale)) {
+            assertThat(Daemon.request(stale, "1").out()).containsExactly("1");
+        }
+        assertThat(stale).doesNotExist();
+    }
+
+    @Test
+    void createsAMissingDirectoryForTheUserAlone() throws IOException {
+        Path nested = dir.resolve("jlox-user").resolve("jlox.sock");
+        try (Daemon own = Daemon.start(nested)) {
+            assertThat(Files.getPosixFilePermissions(nested.getParent())).isEqualTo(PosixFilePermissions.fromString("rwx------"));
+            assertThat(Daemon.request(own.socket(), "2").out()).containsExactly("2");
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.kogu.lox.ch07_eval;
+
+import org.junit.jupiter.api.Test;
+import org.kogu.lox.ch05_ast.Expr;
+import org.kogu.lox.ch07_eval.GovernedInterpreter.Budget;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+import static org.kogu.lox.ch05_ast.BinaryOperator.*;
+import static org.kogu.lox.ch05_ast.Expr.*;
+import static org.kogu.lox.ch07_eval.BudgetExceededError.Resource.*;
+
+class GovernedInterpreterTest {
+
+    @Test
+    void withinBudgetSameAsInterpreter() {
+        Expr e = binary(literal(1), Add, binary(literal(2), Multiply, literal(3.5)));
+        assertThat(new GovernedInterpreter(Budget.unlimited().withMaxSteps(5)).eval(e)).isEqualTo(Interpreter.eval(e));
+    }
+
+    @Test
+    void stepLimitIsExact() {
+        // 5 nodes
+        Expr e = binary(literal(1), Add, binary(literal(2), Multiply, literal(3)));
+        BudgetExceededError error = catchThrowableOfType(
+            () -> new GovernedInterpreter(Budget.unlimited().withMaxSteps(4)).eval(e), BudgetExceededError.class);
+
+        assertThat(error.resource).isEqualTo(Steps);
+        assertThat(error.limit).isEqualTo(4);
+        assertThat(error.getStackTrace()).isEmpty();
+    }
+
+    @Test
+    void shortCircuitedNodesAreNotCounted() {
+        Expr e = binary(literal(true), Or, chain(100));
+        assertThat(new GovernedInterpreter(Budget.unlimited().withMaxSteps(3)).eval(e)).isEqualTo(true);
+    }
+
+    @Test
+    void deadlineIsCheckedEveryInterval() {
+        Budget budget = Budget.unlimited().withTimeout(Duration.ofNanos(1));
+
+        // never reaches a check
+        assertThat(new GovernedInterpreter(budget, 64).eval(chain(10))).isEqualTo(10);
+
+        assertThatThrownBy(() -> new GovernedInterpreter(budget, 64).eval(chain(1000)))
+            .isInstanceOfSatisfying(BudgetExceededError.class, e -> assertThat(e.resource).isEqualTo(Time));
+    }
+
+    @Test
+    void allocationBudget() {
+        Expr strings = literal("");
+        for (int i = 0; i < 1000; i++) strings = binary(strings, Add, literal("0123456789"));
+        Expr e = strings;
+
+        assertThatThrownBy(() -> new GovernedInterpreter(Budget.unlimited().withMaxAllocatedBytes(1024), 16).eval(e))
+            .isInstanceOfSatisfying(BudgetExceededError.class, error -> {
+                assertThat(error.resource).isEqualTo(Allocation);
+                assertThat(error.used).isGreaterThan(1024);
+            });
+    }
+
+    @Test
+    void depthLimit() {
+        assertThatThrownBy(() -> new GovernedInterpreter(Budget.unlimited().withMaxDepth(50)).eval(chain(100)))
+            .isInstanceOfSatisfying(BudgetExceededError.class, e -> assertThat(e.resource).isEqualTo(Depth))
+            .hasMessage("Depth budget exceeded: used 51 levels, limit 50");
+    }
+
+    @Test
+    void loxErrorsPassThrough() {
+        assertThatThrownBy(() -> new GovernedInterpreter(Budget.unlimited()).eval(binary(literal(1), Divide, literal(0))))
+            .isInstanceOf(LoxRuntimeError.class);
+    }
+
+    // 0 + 1 + 1 ... , n additions deep
+    private static Expr chain(int n) {
+        Expr e = literal(0);
+        for (int i = 0; i < n; i++) e = binary(e, Add, literal(1));
+        return e;
+    }
+}
@@ -0,0 +1,31 @@
+package org.kogu.lox.ch07_eval;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+import static org.kogu.lox.ch05_ast.BinaryOperator.*;
+import static org.kogu.lox.ch05_ast.Expr.*;
+
+class LoxRuntimeErrorTest {
+
+    @Test
+    void carriesNoStackTrace() {
+        LoxRuntimeError e = catchThrowableOfType(
+            () -> Interpreter.eval(binary(literal(1), Divide, literal(0))), LoxRuntimeError.class);
+
+        assertThat(e).hasMessage("Cannot divide by zero");
+        assertThat(e.getStackTrace()).isEmpty();
+        assertThat(e.token.lexeme()).isEqualTo("/");
+    }
+
+    @Test
+    void operatorTokensAreShared() {
+        LoxRuntimeError first = catchThrowableOfType(
+            () -> Interpreter.eval(binary(literal(true), Subtract, literal(1))), LoxRuntimeError.class);
+        LoxRuntimeError second = catchThrowableOfType(
+            () -> Interpreter.eval(binary(literal(1), Subtract, literal("a"))), LoxRuntimeError.class);
+
+        assertThat(first.token).isSameAs(second.token);
+    }
+}
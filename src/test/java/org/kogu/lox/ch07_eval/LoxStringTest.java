@@ -0,0 +1,74 @@
+package org.kogu.lox.ch07_eval;
+
+import org.junit.jupiter.api.Test;
+import org.kogu.lox.ch05_ast.Expr;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.kogu.lox.ch05_ast.BinaryOperator.*;
+import static org.kogu.lox.ch05_ast.Expr.*;
+
+class LoxStringTest {
+    private static final String LONG = "0123456789012345678901234567890123456789";
+
+    @Test
+    void concatenationIsLazy() {
+        LoxString s = LoxString.concat(LONG, LONG);
+        assertThat(s.length()).isEqualTo(80);
+        assertThat(s.isFlat()).isFalse();
+
+        assertThat(s.toString()).isEqualTo(LONG + LONG);
+        assertThat(s.isFlat()).isTrue();
+    }
+
+    @Test
+    void shortConcatenationsAreCopied() {
+        LoxString s = LoxString.concat("a", 1);
+        assertThat(s.isFlat()).isTrue();
+        assertThat(s.toString()).isEqualTo("a1");
+    }
+
+    @Test
+    void equalityIgnoresShape() {
+        LoxString leftHeavy = LoxString.concat(LoxString.concat(LONG, "x"), LONG);
+        LoxString rightHeavy = LoxString.concat(LONG, LoxString.concat("x", LONG));
+
+        assertThat(leftHeavy).isEqualTo(rightHeavy);
+        assertThat(leftHeavy.hashCode()).isEqualTo((LONG + "x" + LONG).hashCode());
+        assertThat(Interpreter.isEqual(leftHeavy, LONG + "x" + LONG)).isTrue();
+        assertThat(Interpreter.isEqual(LONG, leftHeavy)).isFalse();
+    }
+
+    @Test
+    void transparentToEquality() {
+        Expr concat = binary(binary(literal(LONG), Add, literal(true)), Add, literal(1.5));
+        Expr eq = binary(concat, Eq, literal(LONG + "true1.5"));
+        Expr notEq = binary(concat, NotEq, literal(LONG));
+
+        assertThat(Interpreter.eval(eq)).isEqualTo(true);
+        assertThat(TaggedInterpreter.evaluate(eq)).isEqualTo(true);
+        assertThat(StackInterpreter.evaluate(notEq)).isEqualTo(true);
+        assertThat(Interpreter.eval(concat).toString()).isEqualTo(LONG + "true1.5");
+    }
+
+    @Test
+    void evaluatorsHandOutPlainStrings() {
+        Expr concat = binary(binary(literal(LONG), Add, literal(true)), Add, literal(LONG));
+        String expected = LONG + "true" + LONG;
+
+        assertThat(Interpreter.eval(concat)).isInstanceOf(String.class).isEqualTo(expected);
+        assertThat(StackInterpreter.evaluate(concat)).isInstanceOf(String.class).isEqualTo(expected);
+        assertThat(TaggedInterpreter.evaluate(concat)).isInstanceOf(String.class).isEqualTo(expected);
+        assertThat(new Pipeline("\"" + LONG + "\" + \"" + LONG + "\"").run().value()).isEqualTo(LONG + LONG);
+    }
+
+    @Test
+    void longChainsBuildInLinearTime() {
+        Expr e = literal("");
+        for (int i = 0; i < 100_000; i++)
+            e = binary(e, Add, literal("abcdefghij"));
+
+        Object s = StackInterpreter.evaluate(e);
+        assertThat(s).isInstanceOf(String.class);
+        assertThat((String) s).hasSize(1_000_000).startsWith("abcdefghijabcdefghij");
+    }
+}
@@ -0,0 +1,92 @@
+package org.kogu.lox.ch07_eval;
+
+import com.google.common.cache.CacheBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.kogu.lox.ch05_ast.BinaryOperator.*;
+import static org.kogu.lox.ch05_ast.Expr.*;
+
+class MemoizingInterpreterTest {
+    private MemoizingInterpreter memo;
+
+    @BeforeEach
+    void setUp() {
+        memo = new MemoizingInterpreter(CacheBuilder.newBuilder().maximumSize(2).concurrencyLevel(1));
+    }
+
+    @Test
+    void structurallyEqualExpressionsShareAnEntry() {
+        assertThat(memo.eval(binary(literal(1), Add, literal(2)))).isEqualTo(3);
+        assertThat(memo.eval(binary(literal(1), Add, literal(2)))).isEqualTo(3);
+        assertThat(memo.eval(binary(literal(2), Add, literal(1)))).isEqualTo(3);
+
+        assertThat(memo.stats().hitCount()).isEqualTo(1);
+        assertThat(memo.stats().missCount()).isEqualTo(2);
+    }
+
+    @Test
+    void nilIsCached() {
+        assertThat(memo.eval(grouping(nil()))).isNull();
+        assertThat(memo.eval(grouping(nil()))).isNull();
+        assertThat(memo.stats().hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void runtimeErrorsAreNeverCached() {
+        for (int i = 0; i < 3; i++)
+            assertThatThrownBy(() -> memo.eval(binary(literal(1), Divide, literal(0))))
+                .isInstanceOf(LoxRuntimeError.class)
+                .hasMessage("Cannot divide by zero");
+
+        assertThat(memo.stats().hitCount()).isZero();
+        assertThat(memo.stats().loadExceptionCount()).isEqualTo(3);
+        assertThat(memo.size()).isZero();
+    }
+
+    @Test
+    void valuesOfTheVariablesReadArePartOfTheKey() {
+        Map<String, Object> globals = new HashMap<>(Map.of("x", 1));
+        MemoizingInterpreter.Variables variables = name -> {
+            if (!globals.containsKey(name.lexeme())) throw Interpreter.undefined(name);
+            return globals.get(name.lexeme());
+        };
+        Expr e = binary(variable("x"), Add, literal(1));
+
+        assertThat(memo.eval(e, variables)).isEqualTo(2);
+        globals.put("x", 41);
+        assertThat(memo.eval(e, variables)).isEqualTo(42);
+        assertThat(memo.eval(binary(variable("x"), Add, literal(1)), variables)).isEqualTo(42);
+        assertThat(memo.stats().hitCount()).isEqualTo(1);
+        assertThat(memo.stats().missCount()).isEqualTo(2);
+    }
+
+    @Test
+    void undefinedVariablesFailOnlyWhenRead() {
+        MemoizingInterpreter.Variables none = name -> {throw Interpreter.undefined(name);};
+        assertThat(memo.eval(binary(literal(true), Or, variable("missing")), none)).isEqualTo(true);
+        assertThatThrownBy(() -> memo.eval(binary(literal(false), Or, variable("missing"))))
+            .isInstanceOf(LoxRuntimeError.class)
+            .hasMessage("Undefined variable 'missing'.");
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        memo.eval(literal(1));
+        memo.eval(literal(2));
+        memo.eval(literal(1));
+        memo.eval(literal(3));
+
+        assertThat(memo.size()).isEqualTo(2);
+        assertThat(memo.stats().evictionCount()).isEqualTo(1);
+
+        // 1 was used more recently than 2
+        memo.eval(literal(1));
+        assertThat(memo.stats().hitCount()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,113 @@
+package org.kogu.lox.ch07_eval;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.kogu.lox.ch05_ast.BinaryOperator;
+import org.kogu.lox.ch05_ast.Expr;
+import org.kogu.lox.ch05_ast.UnaryOperator;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.kogu.lox.ch05_ast.BinaryOperator.*;
+import static org.kogu.lox.ch05_ast.Expr.*;
+
+class ParallelInterpreterTest {
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+    // forks almost everywhere
+    private final ParallelInterpreter parallel = new ParallelInterpreter(pool, 4);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void sameResultAsInterpreter() {
+        Random random = new Random(42);
+        for (int i = 0; i < 20; i++) {
+            Expr e = balanced(random, 10);
+            assertThat(parallel.eval(e)).isEqualTo(Interpreter.eval(e));
+        }
+    }
+
+    @Test
+    void lhsErrorWinsWhenBothOperandsFail() {
+        Expr lhs = binary(balanced(new Random(1), 6), Add, binary(literal(true), Subtract, literal(1)));
+        Expr rhs = binary(balanced(new Random(2), 6), Add, binary(literal(1), Divide, literal(0)));
+
+        for (int i = 0; i < 100; i++)
+            assertThatThrownBy(() -> parallel.eval(binary(lhs, Add, rhs)))
+                .isInstanceOf(LoxRuntimeError.class)
+                .hasMessage("Operands must be numbers.");
+    }
+
+    @Test
+    void rhsErrorSurfacesThroughJoin() {
+        Expr rhs = binary(balanced(new Random(2), 6), Add, binary(literal(1), Divide, literal(0)));
+        assertThatThrownBy(() -> parallel.eval(binary(balanced(new Random(1), 6), Add, rhs)))
+            .isInstanceOf(LoxRuntimeError.class)
+            .hasMessage("Cannot divide by zero");
+    }
+
+    @Test
+    void shortCircuitSkipsRhs() {
+        Expr lhs = binary(balanced(new Random(1), 6), Eq, balanced(new Random(1), 6));
+        Expr rhs = binary(balanced(new Random(2), 6), Divide, literal(0));
+
+        assertThat(parallel.eval(binary(lhs, Or, rhs))).isEqualTo(true);
+        assertThat(parallel.eval(binary(unary(UnaryOperator.Not, lhs), And, rhs))).isEqualTo(false);
+    }
+
+    @Test
+    void smallTreesNeverTouchThePool() {
+        pool.shutdownNow();
+        Expr small = binary(literal(1), Add, binary(literal(2), Multiply, literal(3)));
+        assertThat(new ParallelInterpreter(pool, 1 << 10).eval(small)).isEqualTo(7);
+    }
+
+    @Test
+    void leftDeepChainsGoToThePool() {
+        // every rhs is a leaf: sampled sizes took the whole chain for a small tree
+        Expr chain = literal(0);
+        for (int i = 1; i < 2_000; i++) chain = binary(chain, Add, literal(i));
+        ParallelInterpreter interpreter = new ParallelInterpreter(pool, 64);
+        assertThat(interpreter.eval(chain)).isEqualTo(1_999 * 2_000 / 2);
+
+        // a chain of large operands forks on every one of them
+        Expr heavy = balanced(new Random(3), 7);
+        for (int i = 0; i < 20; i++) heavy = binary(heavy, Subtract, balanced(new Random(i), 7));
+        assertThat(interpreter.eval(heavy)).isEqualTo(Interpreter.eval(heavy));
+
+        pool.shutdownNow();
+        Expr leaves = chain;
+        assertThatThrownBy(() -> interpreter.eval(leaves)).isInstanceOf(RejectedExecutionException.class);
+    }
+
+    @Test
+    void deepChainsFitAWorkersStack() {
+        Expr sum = literal(0), or = literal(false), negated = literal(1);
+        for (int i = 1; i < 100_000; i++) {
+            sum = binary(sum, Add, literal(1));
+            or = binary(or, Or, literal(i == 99_999));
+            negated = unary(UnaryOperator.Negative, negated);
+        }
+
+        for (ParallelInterpreter interpreter : new ParallelInterpreter[]{parallel, new ParallelInterpreter(pool, 64),
+                new ParallelInterpreter(pool, ParallelInterpreter.DEFAULT_THRESHOLD), new ParallelInterpreter(pool, 1 << 17)}) {
+            assertThat(interpreter.eval(sum)).isEqualTo(99_999);
+            assertThat(interpreter.eval(or)).isEqualTo(true);
+            assertThat(interpreter.eval(negated)).isEqualTo(-1);
+        }
+    }
+
+    // 2^depth leaves, always numbers, never divides
+    private static Expr balanced(Random random, int depth) {
+        if (depth == 0) return random.nextBoolean() ? literal(random.nextInt(10)) : literal(random.nextInt(10) + 0.5);
+        BinaryOperator op = new BinaryOperator[]{Add, Subtract, Multiply}[random.nextInt(3)];
+        return binary(balanced(random, depth - 1), op, balanced(random, depth - 1));
+    }
+}
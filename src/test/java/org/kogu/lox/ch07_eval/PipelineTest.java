@@ -0,0 +1,116 @@
+package org.kogu.lox.ch07_eval;
+
+import org.junit.jupiter.api.Test;
+import org.kogu.lox.ch04_scanning.Scanner;
+import org.kogu.lox.ch06_parser.Error;
+import org.kogu.lox.ch06_parser.ErrorReporter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PipelineTest {
+    @Test
+    void valueOfAnExpression() {
+        Pipeline.Result r = new Pipeline("(1 + 2) * 3 - 1.5").run();
+        assertThat(r.status()).isEqualTo(Pipeline.Status.Ok);
+        assertThat(r.value()).isEqualTo(7.5);
+        assertThat(r.diagnostics()).isEmpty();
+    }
+
+    @Test
+    void nilIsAValueNotAFailure() {
+        Pipeline.Result r = new Pipeline("nil").run();
+        assertThat(r.status()).isEqualTo(Pipeline.Status.Ok);
+        assertThat(r.value()).isNull();
+    }
+
+    @Test
+    void scanAndParseErrorsStayOnThePipeline() {
+        Pipeline scan = new Pipeline("1 + @");
+        assertThat(scan.run().status()).isEqualTo(Pipeline.Status.CompileError);
+        assertThat(scan.diagnostics()).containsExactly("[line 1] Error: Unexpected character: @");
+
+        Pipeline parse = new Pipeline("(1 + 2");
+        assertThat(parse.run().status().exitCode).isEqualTo(65);
+        assertThat(parse.diagnostics()).containsExactly("[line 1] Error at end: Expect ')' after expression.");
+    }
+
+    @Test
+    void adjacentBadCharactersAreOneError() {
+        Pipeline p = new Pipeline("1 + @#$ + 2 ~\n\"open");
+        p.run();
+        assertThat(p.diagnostics()).containsExactly(
+            "[line 1] Error: Unexpected characters: @#$",
+            "[line 1] Error: Unexpected character: ~",
+            "[line 2] Error: Unterminated string.");
+    }
+
+    @Test
+    void garbageStopsTheScanner() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) sb.append("1 \0 ");
+        Pipeline p = new Pipeline(sb.toString());
+        p.run();
+        assertThat(p.diagnostics()).hasSize(Scanner.MAX_ERRORS + 1)
+            .first().isEqualTo("[line 1] Error: Unexpected character: \\u0000");
+        assertThat(p.diagnostics()).last().isEqualTo("[line 1] Error: Too many errors, stopped scanning.");
+
+        ErrorReporter.FakeErrorReporter forwarded = new ErrorReporter.FakeErrorReporter();
+        new Pipeline(sb.toString(), forwarded).run();
+        // the unread rest is not one error, only where scanning stopped
+        int stop = 4 * Scanner.MAX_ERRORS - 1;
+        assertThat(forwarded.getError()).isEqualTo(Error.scanError("[line 1] Error: Too many errors, stopped scanning.", 1, stop, stop));
+    }
+
+    @Test
+    void compileErrorsAreForwarded() {
+        ErrorReporter.FakeErrorReporter scan = new ErrorReporter.FakeErrorReporter();
+        new Pipeline("1 + @", scan).run();
+        assertThat(scan.getError()).isEqualTo(Error.scanError("[line 1] Error: Unexpected character: @", 1, 4, 5));
+
+        ErrorReporter.FakeErrorReporter parse = new ErrorReporter.FakeErrorReporter();
+        new Pipeline("(1", parse).run();
+        assertThat(parse.getError()).isEqualTo(Error.parseError("[line 1] Error at end: Expect ')' after expression.", 1, ""));
+
+        new Pipeline("1 +\n)", parse).run();
+        assertThat(parse.getError()).isEqualTo(Error.parseError("[line 2] Error at ')': Expect expression.", 2, ")"));
+
+        ErrorReporter.FakeErrorReporter runtime = new ErrorReporter.FakeErrorReporter();
+        new Pipeline("1 / 0", runtime).run();
+        assertThat(runtime.receivedError()).isFalse();
+    }
+
+    @Test
+    void runtimeErrors() {
+        Pipeline.Result r = new Pipeline("1 / 0").run();
+        assertThat(r.status().exitCode).isEqualTo(70);
+        assertThat(r.diagnostics()).hasSize(1).first().asString().startsWith("Cannot divide by zero");
+    }
+
+    @Test
+    void pipelinesOnVirtualThreadsKeepTheirOwnDiagnostics() throws Exception {
+        List<Future<Pipeline.Result>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 1000; i++) {
+                String source = i % 2 == 0 ? i + " * 2" : "(" + i + " +";
+                results.add(executor.submit(() -> new Pipeline(source).run()));
+            }
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            Pipeline.Result r = results.get(i).get();
+            if (i % 2 == 0) {
+                assertThat(r.value()).isEqualTo(i * 2);
+                assertThat(r.diagnostics()).isEmpty();
+            } else {
+                assertThat(r.status()).isEqualTo(Pipeline.Status.CompileError);
+                assertThat(r.diagnostics()).hasSize(1);
+            }
+        }
+    }
+}
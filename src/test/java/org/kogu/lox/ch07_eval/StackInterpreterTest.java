@@ -0,0 +1,67 @@
+package org.kogu.lox.ch07_eval;
+
+import org.junit.jupiter.api.Test;
+import org.kogu.lox.ch05_ast.Expr;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.kogu.lox.ch05_ast.BinaryOperator.*;
+import static org.kogu.lox.ch05_ast.Expr.*;
+import static org.kogu.lox.ch05_ast.UnaryOperator.Negative;
+import static org.kogu.lox.ch05_ast.UnaryOperator.Not;
+
+class StackInterpreterTest {
+
+    @Test
+    void agreesWithInterpreter() {
+        List<Expr> exprs = List.of(
+            binary(binary(literal(1), Add, literal(2)), Multiply, grouping(binary(literal(3), Subtract, unary(Negative, literal(4))))),
+            binary(literal("a"), Add, literal(1.5)),
+            binary(literal(1), LessThan, literal(2.5)),
+            binary(literal(1), Eq, literal(1.0)),
+            binary(literal(false), Or, literal(2)),
+            binary(nil(), And, literal(3)),
+            unary(Not, nil())
+        );
+
+        for (Expr e : exprs)
+            assertThat(StackInterpreter.evaluate(e)).isEqualTo(Interpreter.eval(e));
+    }
+
+    @Test
+    void shortCircuitSkipsRhs() {
+        Expr boom = binary(literal(1), Divide, literal(0));
+
+        assertThat(StackInterpreter.evaluate(binary(literal(true), Or, boom))).isEqualTo(true);
+        assertThat(StackInterpreter.evaluate(binary(literal(false), And, boom))).isEqualTo(false);
+        assertThatThrownBy(() -> StackInterpreter.evaluate(binary(literal(false), Or, boom)))
+            .isInstanceOf(LoxRuntimeError.class);
+    }
+
+    @Test
+    void leftmostErrorWins() {
+        // `true - 1` is evaluated before `1 / 0`
+        Expr e = binary(binary(literal(true), Subtract, literal(1)), Add, binary(literal(1), Divide, literal(0)));
+        assertThatThrownBy(() -> StackInterpreter.evaluate(e))
+            .isInstanceOf(LoxRuntimeError.class)
+            .hasMessage("Operands must be numbers.");
+
+        // stacks are reset after an error
+        assertThat(StackInterpreter.evaluate(binary(literal(1), Add, literal(2)))).isEqualTo(3);
+    }
+
+    @Test
+    void deeplyNestedExpressions() {
+        Expr sum = literal(0);
+        for (int i = 0; i < 200_000; i++)
+            sum = binary(sum, Add, literal(1));
+        assertThat(StackInterpreter.evaluate(sum)).isEqualTo(200_000);
+
+        Expr not = literal(true);
+        for (int i = 0; i < 100_001; i++)
+            not = unary(Not, grouping(not));
+        assertThat(StackInterpreter.evaluate(not)).isEqualTo(false);
+    }
+}
@@ -0,0 +1,93 @@
+package org.kogu.lox.ch07_eval;
+
+import org.junit.jupiter.api.Test;
+import org.kogu.lox.ch05_ast.Expr;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.kogu.lox.ch05_ast.BinaryOperator.*;
+import static org.kogu.lox.ch05_ast.Expr.*;
+import static org.kogu.lox.ch05_ast.UnaryOperator.Negative;
+import static org.kogu.lox.ch05_ast.UnaryOperator.Not;
+
+class TaggedInterpreterTest {
+
+    @Test
+    void agreesWithInterpreter() {
+        List<Expr> exprs = List.of(
+            binary(literal(1), Add, literal(2)),
+            binary(literal(7), Divide, literal(2)),
+            binary(literal(1.5), Multiply, literal(2.0)),
+            binary(literal(2.0), LessThan, literal(3.0)),
+            binary(literal("a"), Add, literal(3)),
+            binary(literal("a"), Eq, literal("a")),
+            binary(literal(1), Eq, literal(1.0)),
+            binary(literal(true), Or, literal(1)),
+            binary(literal(false), And, literal(1)),
+            binary(nil(), Or, literal(1)),
+            unary(Negative, grouping(binary(literal(4), Subtract, literal(6)))),
+            unary(Not, nil())
+        );
+
+        for (Expr e : exprs)
+            assertThat(TaggedInterpreter.evaluate(e)).isEqualTo(Interpreter.eval(e));
+    }
+
+    @Test
+    void mixedNumbersAreWidened() {
+        TaggedInterpreter interpreter = new TaggedInterpreter();
+
+        assertThat(interpreter.eval(binary(literal(1), Add, literal(0.5)))).isEqualTo(TaggedInterpreter.Tag.Double);
+        assertThat(interpreter.doubleValue()).isEqualTo(1.5);
+
+        assertThat(interpreter.eval(binary(literal(1), LessThan, literal(2)))).isEqualTo(TaggedInterpreter.Tag.Bool);
+        assertThat(interpreter.boolValue()).isTrue();
+    }
+
+    @Test
+    void runtimeErrors() {
+        assertThatThrownBy(() -> TaggedInterpreter.evaluate(binary(literal(1), Divide, literal(0))))
+            .isInstanceOf(LoxRuntimeError.class)
+            .hasMessage("Cannot divide by zero");
+
+        assertThatThrownBy(() -> TaggedInterpreter.evaluate(binary(literal(true), Subtract, literal(1))))
+            .isInstanceOf(LoxRuntimeError.class)
+            .hasMessage("Operands must be numbers.");
+
+        assertThatThrownBy(() -> TaggedInterpreter.evaluate(unary(Negative, literal("a"))))
+            .isInstanceOf(LoxRuntimeError.class)
+            .hasMessage("Operand must be a number.");
+    }
+
+    @Test
+    void numericExpressionsDoNotAllocate() {
+        // 1.5 * (2.25 - -4.0) + 1000000.0
+        Expr e = binary(
+            binary(literal(1.5), Multiply, grouping(binary(literal(2.25), Subtract, unary(Negative, literal(4.0))))),
+            Add,
+            literal(1e6)
+        );
+        TaggedInterpreter interpreter = new TaggedInterpreter();
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        double sum = 0;
+        for (int i = 0; i < 10_000; i++) {
+            interpreter.eval(e);
+            sum += interpreter.doubleValue();
+        }
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 100_000; i++) {
+            interpreter.eval(e);
+            sum += interpreter.doubleValue();
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        assertThat(sum).isPositive();
+        // boxed Interpreter allocates a Double per intermediate result, ~19MB for this loop
+        assertThat(allocated).isLessThan(1024);
+    }
+}
@@ -0,0 +1,81 @@
+package org.kogu.lox.ch07_eval;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kogu.lox.ch05_ast.Expr;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.kogu.lox.ch05_ast.BinaryOperator.*;
+import static org.kogu.lox.ch05_ast.Expr.*;
+import static org.kogu.lox.ch07_eval.TieredInterpreter.Tier.*;
+
+class TieredInterpreterTest {
+    private TieredInterpreter tiered;
+
+    @BeforeEach
+    void setUp() {
+        tiered = new TieredInterpreter(2, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        tiered.close();
+    }
+
+    @Test
+    void promotesThroughTiers() throws Exception {
+        Expr e = binary(literal(1), LessThan, binary(literal(2), Multiply, literal(3.0)));
+        TieredInterpreter.Compiled c = tiered.compile(e);
+
+        assertThat(evalAndWait(c)).isEqualTo(true);
+        assertThat(c.tier()).isEqualTo(Interpreted);
+
+        assertThat(evalAndWait(c)).isEqualTo(true);
+        assertThat(c.tier()).isEqualTo(Specialized);
+
+        evalAndWait(c);
+        assertThat(evalAndWait(c)).isEqualTo(true);
+        assertThat(c.tier()).isEqualTo(Folded);
+    }
+
+    @Test
+    void runtimeErrorsSurviveFolding() throws Exception {
+        TieredInterpreter.Compiled c = tiered.compile(binary(literal(1), Add, binary(literal(1), Divide, literal(0))));
+        for (int i = 0; i < 5; i++) {
+            assertThatThrownBy(c::eval).isInstanceOf(LoxRuntimeError.class);
+            tiered.awaitCompilations();
+        }
+        assertThat(c.tier()).isEqualTo(Folded);
+    }
+
+    @Test
+    void metricsShowTierOfEachExpression() throws Exception {
+        TieredInterpreter.Compiled hot = tiered.compile(binary(literal(1), Add, literal(2)));
+        tiered.compile(binary(literal("a"), Add, literal("b")));
+
+        for (int i = 0; i < 3; i++) evalAndWait(hot);
+
+        assertThat(tiered.metrics()).containsExactly(
+            new TieredInterpreter.TierInfo("1 + 2", Specialized, 3),
+            new TieredInterpreter.TierInfo("\"a\" + \"b\"", Interpreted, 0)
+        );
+        assertThat(tiered.countByTier()).containsEntry(Interpreted, 1).containsEntry(Specialized, 1).containsEntry(Folded, 0);
+    }
+
+    @Test
+    void closedInterpreterKeepsCurrentTier() {
+        TieredInterpreter.Compiled c = tiered.compile(binary(literal(1), Add, literal(2)));
+        tiered.close();
+        for (int i = 0; i < 10; i++)
+            assertThat(c.eval()).isEqualTo(3);
+        assertThat(c.tier()).isEqualTo(Interpreted);
+    }
+
+    private Object evalAndWait(TieredInterpreter.Compiled c) throws Exception {
+        Object o = c.eval();
+        tiered.awaitCompilations();
+        return o;
+    }
+}
@@ -0,0 +1,102 @@
+package org.kogu.lox.ch07_eval;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kogu.lox.ch05_ast.Expr;
+import org.kogu.lox.ch06_parser.Error;
+import org.kogu.lox.ch06_parser.ErrorReporter;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.kogu.lox.ch05_ast.BinaryOperator.*;
+import static org.kogu.lox.ch05_ast.Expr.*;
+import static org.kogu.lox.ch05_ast.UnaryOperator.Negative;
+import static org.kogu.lox.ch05_ast.UnaryOperator.Not;
+
+class TypeCheckerTest {
+    private ErrorReporter.FakeErrorReporter reporter;
+
+    @BeforeEach
+    void setUp() {
+        reporter = new ErrorReporter.FakeErrorReporter();
+    }
+
+    @Test
+    void infersEveryNode() {
+        Expr lhs = binary(literal(1), Multiply, literal(2));
+        Expr rhs = unary(Negative, literal(0.5));
+        Expr e = binary(lhs, Add, rhs);
+        TypeChecker types = TypeChecker.check(e, reporter);
+
+        assertThat(types.typeOf(lhs)).isEqualTo(StaticType.Int);
+        assertThat(types.typeOf(rhs)).isEqualTo(StaticType.Double);
+        assertThat(types.typeOf(e)).isEqualTo(StaticType.Double);
+        assertThat(types.hadError()).isFalse();
+    }
+
+    @Test
+    void staticTypes() {
+        assertThat(typeOf(binary(literal(1), LessThan, literal(2)))).isEqualTo(StaticType.Bool);
+        assertThat(typeOf(binary(literal("a"), Add, literal(1)))).isEqualTo(StaticType.String);
+        assertThat(typeOf(unary(Not, literal(1)))).isEqualTo(StaticType.Bool);
+        assertThat(typeOf(grouping(nil()))).isEqualTo(StaticType.Nil);
+        assertThat(typeOf(binary(literal(true), Or, literal(false)))).isEqualTo(StaticType.Bool);
+        assertThat(typeOf(binary(literal(1), Or, literal(2)))).isEqualTo(StaticType.Int);
+        assertThat(typeOf(binary(literal(true), Or, literal(2)))).isEqualTo(StaticType.Dynamic);
+        assertThat(reporter.receivedError()).isFalse();
+    }
+
+    @Test
+    void reportsDefiniteTypeErrors() {
+        assertThat(typeOf(binary(literal(true), Subtract, literal(1)))).isEqualTo(StaticType.Dynamic);
+        assertThat(reporter.getError()).isInstanceOf(Error.TypeError.class);
+
+        reporter.reset();
+        typeOf(unary(Negative, literal("a")));
+        assertThat(reporter.receivedError()).isTrue();
+
+        reporter.reset();
+        typeOf(binary(nil(), LessThan, literal(1)));
+        assertThat(reporter.receivedError()).isTrue();
+
+        // may be a string at runtime
+        reporter.reset();
+        typeOf(binary(binary(literal(true), Or, literal("a")), Add, literal(true)));
+        assertThat(reporter.receivedError()).isFalse();
+    }
+
+    @Test
+    void specializedAgreesWithTaggedInterpreter() {
+        List<Expr> exprs = List.of(
+            binary(literal(1), LessThan, literal(2)),
+            binary(literal(1), Add, literal(2.5)),
+            binary(literal(7), Divide, literal(2)),
+            binary(literal("a"), Add, literal(3)),
+            binary(literal(1), Eq, literal(1.0)),
+            binary(literal(2.0), Eq, literal(2.0)),
+            binary(literal(true), NotEq, literal(false)),
+            binary(literal(false), Or, literal(1)),
+            binary(binary(literal(false), Or, literal(1)), Add, literal(2)),
+            binary(binary(literal(true), And, literal(3)), Multiply, literal(2.0)),
+            unary(Not, nil())
+        );
+
+        for (Expr e : exprs)
+            assertThat(Specializer.specialize(e, reporter).eval()).isEqualTo(TaggedInterpreter.evaluate(e));
+    }
+
+    @Test
+    void monomorphicNodesAreSpecialized() {
+        Specialized s = Specializer.specialize(binary(literal(1), LessThan, literal(2.0)), reporter);
+        assertThat(s).isInstanceOf(Specialized.DoubleCompare.class);
+        assertThat(s.evalBool()).isTrue();
+
+        s = Specializer.specialize(binary(binary(literal(true), Or, literal(1)), Add, literal(2)), reporter);
+        assertThat(s).isInstanceOf(Specialized.Fallback.class);
+    }
+
+    private StaticType typeOf(Expr e) {
+        return TypeChecker.check(e, reporter).typeOf(e);
+    }
+}
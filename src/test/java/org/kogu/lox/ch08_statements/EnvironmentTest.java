@@ -0,0 +1,123 @@
+package org.kogu.lox.ch08_statements;
+
+import org.junit.jupiter.api.Test;
+import org.kogu.lox.ch04_scanning.Token;
+import org.kogu.lox.ch04_scanning.TokenType;
+import org.kogu.lox.ch07_eval.LoxRuntimeError;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EnvironmentTest {
+    private static final int THREADS = 8;
+
+    @Test
+    void nilIsNotUndefined() {
+        for (Environment env : List.of(new Environment(), Environment.concurrent(), Environment.concurrent().overlay())) {
+            env.define("n", null);
+            assertThat(env.isDefined("n")).isTrue();
+            assertThat(env.get(name("n"))).isNull();
+            assertThatThrownBy(() -> env.get(name("missing")))
+                .isInstanceOf(LoxRuntimeError.class)
+                .hasMessage("Undefined variable 'missing'.");
+        }
+    }
+
+    @Test
+    void concurrentDefinesAreAllVisible() throws InterruptedException {
+        Environment env = Environment.concurrent();
+        run(t -> {
+            for (int i = 0; i < 1000; i++) env.define("t" + t + "_" + i, i);
+        });
+
+        for (int t = 0; t < THREADS; t++)
+            for (int i = 0; i < 1000; i++)
+                assertThat(env.get(name("t" + t + "_" + i))).isEqualTo(i);
+    }
+
+    @Test
+    void concurrentAssignmentsNeverDefine() throws InterruptedException {
+        Environment env = Environment.concurrent();
+        env.define("shared", 0);
+        List<Throwable> undefined = new ArrayList<>();
+        run(t -> {
+            for (int i = 0; i < 1000; i++) {
+                env.assign(name("shared"), t);
+                try {
+                    env.assign(name("never" + i), t);
+                } catch (LoxRuntimeError e) {
+                    synchronized (undefined) {undefined.add(e);}
+                }
+            }
+        });
+
+        assertThat(undefined).hasSize(THREADS * 1000);
+        assertThat(env.get(name("shared"))).isIn(0, 1, 2, 3, 4, 5, 6, 7);
+        assertThat(env.isDefined("never0")).isFalse();
+    }
+
+    @Test
+    void overlayKeepsDefinitionsLocalAndReadsThrough() {
+        Environment shared = Environment.concurrent();
+        shared.define("config", "global");
+        shared.define("counter", 1);
+
+        Environment request = shared.overlay();
+        request.define("config", "local");
+        request.define("user", "alice");
+        request.assign(name("counter"), 2);
+
+        assertThat(request.get(name("config"))).isEqualTo("local");
+        assertThat(shared.get(name("config"))).isEqualTo("global");
+        assertThat(shared.isDefined("user")).isFalse();
+        // assigning a global the overlay does not define goes to the shared scope
+        assertThat(shared.get(name("counter"))).isEqualTo(2);
+        assertThat(request.version("config")).isNotEqualTo(shared.version("config"));
+    }
+
+    @Test
+    void readsOfUnknownNamesDoNotIntern() {
+        Environment env = Environment.concurrent().overlay();
+        assertThatThrownBy(() -> env.get(name("unknown-read"))).isInstanceOf(LoxRuntimeError.class);
+        assertThatThrownBy(() -> env.assign(name("unknown-read"), 1)).isInstanceOf(LoxRuntimeError.class);
+        assertThat(env.isDefined("unknown-read")).isFalse();
+        assertThat(env.valueOf("unknown-read")).isNull();
+        assertThat(env.version("unknown-read")).isZero();
+        assertThat(Symbols.lookup("unknown-read")).isEqualTo(-1);
+
+        env.define("unknown-read", 1);
+        assertThat(Symbols.lookup("unknown-read")).isNotNegative();
+    }
+
+    private interface Task {
+        void run(int thread) throws Exception;
+    }
+
+    private static void run(Task task) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            threads.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                    task.run(thread);
+                } catch (Throwable e) {
+                    synchronized (failures) {failures.add(e);}
+                }
+            }));
+        }
+        start.countDown();
+        for (Thread t : threads) t.join();
+        assertThat(failures).isEmpty();
+    }
+
+    private static Token name(String lexeme) {
+        return Token.of(TokenType.IDENTIFIER, lexeme, -1);
+    }
+}
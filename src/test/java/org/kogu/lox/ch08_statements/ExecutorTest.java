@@ -0,0 +1,132 @@
+package org.kogu.lox.ch08_statements;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kogu.lox.ch06_parser.Error;
+import org.kogu.lox.ch06_parser.ErrorReporter;
+import org.kogu.lox.ch07_eval.LoxRuntimeError;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.kogu.lox.ch05_ast.BinaryOperator.*;
+import static org.kogu.lox.ch05_ast.Expr.*;
+import static org.kogu.lox.ch08_statements.Stmt.*;
+
+class ExecutorTest {
+    private final ByteArrayOutputStream printed = new ByteArrayOutputStream();
+    private ErrorReporter.FakeErrorReporter reporter;
+    private Executor executor;
+
+    @BeforeEach
+    void setUp() {
+        reporter = new ErrorReporter.FakeErrorReporter();
+        executor = new Executor(new Environment(), new PrintStream(printed, true));
+    }
+
+    @Test
+    void blocksShadowAndSeeEnclosingScopes() {
+        run(
+            var("a", literal("global")),
+            block(
+                var("a", literal("outer")),
+                var("b", literal(1)),
+                block(
+                    var("a", literal("inner")),
+                    print(variable("a")),
+                    print(binary(variable("b"), Add, literal(1)))
+                ),
+                print(variable("a"))
+            ),
+            print(variable("a"))
+        );
+        assertThat(output()).containsExactly("inner", "2", "outer", "global");
+    }
+
+    @Test
+    void assignmentWritesTheResolvedSlot() {
+        run(
+            var("x", literal(1)),
+            block(
+                var("y", literal(10)),
+                block(
+                    assign("y", binary(variable("y"), Add, literal(5))),
+                    assign("x", binary(variable("x"), Multiply, literal(2.5)))
+                ),
+                print(variable("y"))
+            ),
+            print(variable("x"))
+        );
+        assertThat(output()).containsExactly("15", "2.5");
+    }
+
+    @Test
+    void useBeforeLocalDeclarationReadsGlobal() {
+        run(
+            var("a", literal(1)),
+            block(
+                print(variable("a")),
+                var("a", literal(2)),
+                print(variable("a"))
+            )
+        );
+        assertThat(output()).containsExactly("1", "2");
+    }
+
+    @Test
+    void undefinedGlobalsStillFailByName() {
+        assertThatThrownBy(() -> run(block(print(variable("missing")))))
+            .isInstanceOf(LoxRuntimeError.class)
+            .hasMessage("Undefined variable 'missing'.");
+
+        assertThatThrownBy(() -> run(assign("missing", literal(1))))
+            .isInstanceOf(LoxRuntimeError.class)
+            .hasMessage("Undefined variable 'missing'.");
+    }
+
+    @Test
+    void resolvingUnknownGlobalsDoesNotIntern() {
+        assertThatThrownBy(() -> run(print(variable("never-declared"))))
+            .hasMessage("Undefined variable 'never-declared'.");
+        assertThatThrownBy(() -> run(assign("never-declared", literal(1))))
+            .hasMessage("Undefined variable 'never-declared'.");
+        assertThat(Symbols.lookup("never-declared")).isEqualTo(-1);
+
+        run(var("declared-later", literal(1)), print(variable("declared-later")));
+        assertThat(output()).containsExactly("1");
+    }
+
+    @Test
+    void nilGlobalIsDefined() {
+        run(
+            var("n", nil()),
+            print(variable("n")),
+            assign("n", literal(1)),
+            print(variable("n"))
+        );
+        assertThat(output()).containsExactly("nil", "1");
+    }
+
+    @Test
+    void resolverErrorsStopExecution() {
+        assertThat(executor.execute(List.of(block(var("a", variable("a")), print(literal(1)))), reporter)).isFalse();
+        assertThat(reporter.getError()).isInstanceOf(Error.ResolveError.class);
+        assertThat(output()).isEmpty();
+
+        reporter.reset();
+        assertThat(executor.execute(List.of(block(var("a", literal(1)), var("a", literal(2)))), reporter)).isFalse();
+        assertThat(reporter.getError().toString()).contains("Already a variable with this name in this scope.");
+    }
+
+    private void run(Stmt... program) {
+        assertThat(executor.execute(List.of(program), reporter)).isTrue();
+    }
+
+    private List<String> output() {
+        String s = printed.toString();
+        return s.isEmpty() ? List.of() : List.of(s.split(System.lineSeparator()));
+    }
+}
@@ -0,0 +1,98 @@
+package org.kogu.lox.ch08_statements;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.kogu.lox.ch04_scanning.Token;
+import org.kogu.lox.ch04_scanning.TokenType;
+import org.kogu.lox.ch05_ast.Expr;
+import org.kogu.lox.ch05_ast.UnaryOperator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.kogu.lox.ch05_ast.BinaryOperator.*;
+import static org.kogu.lox.ch05_ast.Expr.*;
+
+class ImageTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void bindingsAndExpressionsSurviveTheRoundTrip() throws IOException {
+        Environment env = new Environment();
+        env.define("count", 42);
+        env.define("rate", 1.5);
+        env.define("name", "lox");
+        env.define("enabled", true);
+        env.define("nothing", null);
+        Expr price = binary(grouping(binary(variable("count"), Multiply, variable("rate"))), Subtract, unary(UnaryOperator.Negative, literal(1)));
+
+        Path file = dir.resolve("state.loximg");
+        Image.write(file, env, Map.of("price", price, "naïve", literal("x")));
+        Image image = Image.open(file);
+        Environment restored = Environment.fromImage(image);
+
+        assertThat(restored.get(name("count"))).isEqualTo(42);
+        assertThat(restored.get(name("rate"))).isEqualTo(1.5);
+        assertThat(restored.get(name("name"))).isEqualTo("lox");
+        assertThat(restored.get(name("enabled"))).isEqualTo(true);
+        assertThat(restored.isDefined("nothing")).isTrue();
+        assertThat(restored.isDefined("missing")).isFalse();
+        assertThat(image.expression("price")).contains(price);
+        assertThat(image.expression("naïve")).contains(literal("x"));
+        assertThat(image.expression("missing")).isEmpty();
+    }
+
+    @Test
+    void changesStayInMemoryAndCanBeWrittenAgain() throws IOException {
+        Environment env = new Environment();
+        for (int i = 0; i < 1000; i++) env.define("g" + i, i);
+        Path first = dir.resolve("first.loximg");
+        Image.write(first, env, Map.of());
+
+        Environment restored = Environment.fromImage(Image.open(first));
+        restored.assign(name("g7"), "changed");
+        restored.define("added", true);
+        assertThat(Environment.fromImage(Image.open(first)).get(name("g7"))).isEqualTo(7);
+
+        Path second = dir.resolve("second.loximg");
+        Image.write(second, restored, Map.of());
+        Environment again = Environment.fromImage(Image.open(second));
+        assertThat(again.get(name("g7"))).isEqualTo("changed");
+        assertThat(again.get(name("g999"))).isEqualTo(999);
+        assertThat(again.get(name("added"))).isEqualTo(true);
+    }
+
+    @Test
+    void writingOverAnOpenImageLeavesItReadable() throws IOException {
+        Environment env = new Environment();
+        for (int i = 0; i < 1000; i++) env.define("g" + i, i);
+        Path file = dir.resolve("state.loximg");
+        Image.write(file, env, Map.of());
+
+        Environment restored = Environment.fromImage(Image.open(file));
+        restored.assign(name("g7"), "changed");
+        Image.write(file, restored, Map.of());
+
+        // g500 was never decoded, it comes from the file mapped before the write
+        assertThat(restored.get(name("g500"))).isEqualTo(500);
+        assertThat(Environment.fromImage(Image.open(file)).get(name("g7"))).isEqualTo("changed");
+        try (var files = Files.list(dir)) {
+            assertThat(files).containsExactly(file);
+        }
+    }
+
+    @Test
+    void rejectsFilesThatAreNotImages() throws IOException {
+        Path file = Files.writeString(dir.resolve("script.lox"), "print 1;");
+        assertThatThrownBy(() -> Image.open(file)).isInstanceOf(IOException.class).hasMessageContaining("Not a jlox image");
+    }
+
+    private static Token name(String lexeme) {
+        return Token.of(TokenType.IDENTIFIER, lexeme, -1);
+    }
+}
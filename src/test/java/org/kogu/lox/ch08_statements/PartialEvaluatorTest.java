@@ -0,0 +1,81 @@
+package org.kogu.lox.ch08_statements;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kogu.lox.ch05_ast.Expr;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.kogu.lox.ch05_ast.BinaryOperator.*;
+import static org.kogu.lox.ch05_ast.Expr.*;
+
+class PartialEvaluatorTest {
+    private Environment env;
+    private PartialEvaluator partial;
+
+    @BeforeEach
+    void setUp() {
+        env = new Environment();
+        env.define("rate", 2);
+        env.define("base", 10);
+        env.define("enabled", false);
+        partial = new PartialEvaluator(env, Set.of("rate", "base", "enabled", "later"));
+    }
+
+    @Test
+    void foldsStableBindingsAroundDynamicOnes() {
+        // price * (rate + 1) + base * 2
+        Expr e = binary(binary(variable("price"), Multiply, grouping(binary(variable("rate"), Add, literal(1)))),
+            Add, binary(variable("base"), Multiply, literal(2)));
+
+        PartialEvaluator.Residual r = partial.residualize(e);
+        assertThat(r.expr()).isEqualTo(binary(binary(variable("price"), Multiply, literal(3)), Add, literal(20)));
+        assertThat(r.dynamicVariables()).containsExactly("price");
+        assertThat(r.isValid()).isTrue();
+    }
+
+    @Test
+    void knownLhsDecidesShortCircuit() {
+        Expr e = binary(variable("enabled"), And, binary(variable("price"), GreaterThan, variable("base")));
+        assertThat(partial.residualize(e).expr()).isEqualTo(literal(false));
+
+        env.define("enabled", true);
+        assertThat(partial.residualize(e).expr()).isEqualTo(binary(variable("price"), GreaterThan, literal(10)));
+    }
+
+    @Test
+    void variablesFoldedAwayAreNotDynamic() {
+        Expr and = binary(variable("enabled"), And, variable("price"));
+        assertThat(partial.residualize(and).dynamicVariables()).isEmpty();
+
+        env.define("enabled", true);
+        Expr or = binary(variable("enabled"), Or, variable("price"));
+        assertThat(partial.residualize(or).expr()).isEqualTo(literal(true));
+        assertThat(partial.residualize(or).dynamicVariables()).isEmpty();
+        assertThat(partial.residualize(and).dynamicVariables()).containsExactly("price");
+    }
+
+    @Test
+    void redefiningStableBindingInvalidates() {
+        PartialEvaluator.Residual r = partial.residualize(binary(variable("rate"), Multiply, variable("price")));
+        env.define("price", 5); // dynamic, not an assumption
+        assertThat(r.isValid()).isTrue();
+
+        env.define("rate", 4);
+        assertThat(r.isValid()).isFalse();
+        assertThat(r.refresh().expr()).isEqualTo(binary(literal(4), Multiply, variable("price")));
+        assertThat(r.refresh().isValid()).isTrue();
+    }
+
+    @Test
+    void undefinedStableNameStaysAVariableUntilDefined() {
+        PartialEvaluator.Residual r = partial.residualize(binary(variable("later"), Add, literal(1)));
+        assertThat(r.expr()).isEqualTo(binary(variable("later"), Add, literal(1)));
+        assertThat(r.dynamicVariables()).containsExactly("later");
+
+        env.define("later", 41);
+        assertThat(r.isValid()).isFalse();
+        assertThat(r.refresh().expr()).isEqualTo(literal(42));
+    }
+}
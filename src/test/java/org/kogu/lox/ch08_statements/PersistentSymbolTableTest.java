@@ -0,0 +1,63 @@
+package org.kogu.lox.ch08_statements;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PersistentSymbolTableTest {
+    private final PersistentSymbolTable table = new PersistentSymbolTable();
+
+    @Test
+    void holdsManySymbolsIncludingNil() {
+        for (int i = 0; i < 10_000; i++) table.define(site("p" + i), i % 3 == 0 ? null : i);
+
+        for (int i = 0; i < 10_000; i++) assertThat(table.get(site("p" + i))).isEqualTo(i % 3 == 0 ? null : i);
+        assertThat(table.get(site("absent"))).isSameAs(Globals.UNDEFINED);
+    }
+
+    @Test
+    void forksAreIndependent() {
+        for (int i = 0; i < 100; i++) table.define(site("f" + i), i);
+        PersistentSymbolTable fork = table.fork();
+
+        fork.define(site("f1"), "fork");
+        fork.define(site("new"), true);
+        table.define(site("f2"), "original");
+
+        assertThat(fork.get(site("f1"))).isEqualTo("fork");
+        assertThat(fork.get(site("f2"))).isEqualTo(2);
+        assertThat(table.get(site("f1"))).isEqualTo(1);
+        assertThat(table.get(site("f2"))).isEqualTo("original");
+        assertThat(table.get(site("new"))).isSameAs(Globals.UNDEFINED);
+    }
+
+    @Test
+    void snapshotsNeitherChangeNorAcceptChanges() {
+        table.define(site("s"), 1);
+        PersistentSymbolTable snapshot = table.snapshot();
+        table.define(site("s"), 2);
+        table.define(site("t"), 3);
+
+        assertThat(snapshot.get(site("s"))).isEqualTo(1);
+        assertThat(snapshot.get(site("t"))).isSameAs(Globals.UNDEFINED);
+        assertThat(snapshot.snapshot()).isSameAs(snapshot);
+        assertThatThrownBy(() -> snapshot.define(site("s"), 4)).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void assignOnlyUpdatesDefinedSymbols() {
+        assertThat(table.assign(site("a"), 1)).isFalse();
+        table.define(site("a"), 1);
+        long version = table.version(site("a"));
+        PersistentSymbolTable fork = table.fork();
+
+        assertThat(fork.assign(site("a"), 2)).isTrue();
+        assertThat(fork.version(site("a"))).isNotEqualTo(version);
+        assertThat(table.version(site("a"))).isEqualTo(version);
+    }
+
+    private static SymbolTable.Site site(String name) {
+        return new SymbolTable.Site(Symbols.intern(name));
+    }
+}
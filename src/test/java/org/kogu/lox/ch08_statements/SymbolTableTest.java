@@ -0,0 +1,60 @@
+package org.kogu.lox.ch08_statements;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SymbolTableTest {
+    private final SymbolTable table = new SymbolTable();
+
+    @Test
+    void findsEveryDefinedSymbolAcrossRehashes() {
+        for (int i = 0; i < 1000; i++) table.define(table.reserve(Symbols.intern("v" + i)), i);
+
+        for (int i = 0; i < 1000; i++) {
+            int entry = table.find(Symbols.intern("v" + i));
+            assertThat(table.isDefined(entry)).isTrue();
+            assertThat(table.value(entry)).isEqualTo(i);
+        }
+        assertThat(table.find(Symbols.intern("absent"))).isEqualTo(-1);
+    }
+
+    @Test
+    void nilIsDefinedButReservedIsNot() {
+        int nil = table.reserve(Symbols.intern("nil-valued"));
+        int reserved = table.reserve(Symbols.intern("reserved"));
+        table.define(nil, null);
+
+        assertThat(table.isDefined(nil)).isTrue();
+        assertThat(table.isDefined(reserved)).isFalse();
+        assertThat(table.version(reserved)).isZero();
+        assertThat(table.isDefined(-1)).isFalse();
+    }
+
+    @Test
+    void siteHintSurvivesGrowthAndIsCheckedAgainstOtherTables() {
+        SymbolTable.Site site = new SymbolTable.Site(Symbols.intern("hinted"));
+        assertThat(table.find(site)).isEqualTo(-1);
+
+        int entry = table.reserve(site.symbol);
+        assertThat(table.find(site)).isEqualTo(entry);
+        for (int i = 0; i < 100; i++) table.reserve(Symbols.intern("grow" + i));
+        assertThat(site.hint).isEqualTo(entry);
+        assertThat(table.find(site)).isEqualTo(entry);
+
+        // same site, different table: the stale hint points at some other symbol
+        SymbolTable other = new SymbolTable();
+        for (int i = 0; i <= entry; i++) other.reserve(Symbols.intern("other" + i));
+        assertThat(other.find(site)).isEqualTo(-1);
+        assertThat(other.find(site)).isEqualTo(other.find(site.symbol));
+    }
+
+    @Test
+    void versionsGrowWithEveryDefine() {
+        int a = table.reserve(Symbols.intern("a"));
+        table.define(a, 1);
+        long first = table.version(a);
+        table.define(a, 1);
+        assertThat(table.version(a)).isGreaterThan(first);
+    }
+}